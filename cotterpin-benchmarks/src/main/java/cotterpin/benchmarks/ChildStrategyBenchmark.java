@@ -0,0 +1,89 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.benchmarks;
+
+import static cotterpin.BuildStrategy.prototype;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import acme.Character;
+import acme.CharacterType;
+import cotterpin.ChildStrategy;
+import cotterpin.Cotterpin;
+
+/**
+ * Child steps subject to stacked {@link ChildStrategy} chains.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChildStrategyBenchmark {
+
+    private static final int WIDTH = 10;
+
+    @Param({ "0", "1", "4", "16" })
+    int depth;
+
+    Supplier<Character> blueprint;
+
+    @Setup
+    public void setup() {
+        final ChildStrategy[] strategies = new ChildStrategy[depth];
+        for (int i = 0; i < depth; i++) {
+            strategies[i] = i % 2 == 0 ? ChildStrategy.IGNORE_NULL_PARENT : ChildStrategy.IGNORE_NULL_VALUE;
+        }
+        // @formatter:off
+        blueprint = Cotterpin.build(prototype(), Character::new)
+            .strategy(strategies)
+            .times(WIDTH, (b, i) ->
+                b.child(CharacterType.GHOST).onto(Character::setType)
+            );
+        // @formatter:on
+    }
+
+    @Benchmark
+    public Character blueprint() {
+        return blueprint.get();
+    }
+
+    @Benchmark
+    public Character handwritten() {
+        final Character result = new Character();
+        for (int i = 0; i < WIDTH; i++) {
+            final CharacterType type = CharacterType.GHOST;
+            if (result != null && type != null) {
+                result.setType(type);
+            }
+        }
+        return result;
+    }
+}
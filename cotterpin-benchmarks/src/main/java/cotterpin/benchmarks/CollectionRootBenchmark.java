@@ -0,0 +1,119 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.benchmarks;
+
+import static cotterpin.BuildStrategy.prototype;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import acme.Character;
+import acme.CharacterType;
+import cotterpin.Cotterpin;
+
+/**
+ * {@code buildCollection}/{@code buildMap} roots.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionRootBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    int size;
+
+    String[] keys;
+    CharacterType[] types;
+    Supplier<ArrayList<Character>> collection;
+    Supplier<LinkedHashMap<String, Character>> map;
+
+    @Setup
+    public void setup() {
+        keys = new String[size];
+        types = new CharacterType[size];
+        final CharacterType[] values = CharacterType.values();
+        for (int i = 0; i < size; i++) {
+            keys[i] = "k" + i;
+            types[i] = values[i % values.length];
+        }
+        // @formatter:off
+        collection = Cotterpin.buildCollection(prototype(), () -> new ArrayList<Character>())
+            .times(size, (b, i) ->
+                b.element(Character::new)
+                    .child(types[i]).onto(Character::setType)
+                .add()
+            );
+
+        map = Cotterpin.buildMap(prototype(), () -> new LinkedHashMap<String, Character>())
+            .times(size, (b, i) ->
+                b.value(Character::new)
+                    .child(types[i]).onto(Character::setType)
+                .at(keys[i])
+            );
+        // @formatter:on
+    }
+
+    @Benchmark
+    public ArrayList<Character> collection() {
+        return collection.get();
+    }
+
+    @Benchmark
+    public List<Character> handwrittenCollection() {
+        final List<Character> result = new ArrayList<>();
+        for (CharacterType type : types) {
+            final Character character = new Character();
+            character.setType(type);
+            result.add(character);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, Character> map() {
+        return map.get();
+    }
+
+    @Benchmark
+    public Map<String, Character> handwrittenMap() {
+        final Map<String, Character> result = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            final Character character = new Character();
+            character.setType(types[i]);
+            result.put(keys[i], character);
+        }
+        return result;
+    }
+}
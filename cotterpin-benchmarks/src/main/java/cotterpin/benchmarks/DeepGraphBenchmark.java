@@ -0,0 +1,112 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.benchmarks;
+
+import static cotterpin.BuildStrategy.prototype;
+import static cotterpin.ComponentStrategy.ifNull;
+
+import java.time.Year;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import acme.Character;
+import acme.CharacterType;
+import acme.Franchise;
+import cotterpin.Cotterpin;
+
+/**
+ * Deep {@code child(...).onto(...)} chains: every level of the
+ * {@link Franchise} model is reached through nested child blueprints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeepGraphBenchmark {
+
+    Supplier<Franchise> blueprint;
+
+    @Setup
+    public void setup() {
+        // @formatter:off
+        blueprint = Cotterpin.build(prototype(), Franchise::new)
+            .child("Evil Dead").onto(Franchise::setName)
+            .mutate(Franchise.Info.class)
+                .child(Year.of(1981)).onto(Franchise.Info::setOriginated)
+            .onto(Franchise::getInfo)
+            .child(Character::new)
+                .child(CharacterType.UNDEAD).onto(Character::setType)
+                .child("Book").addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, LinkedHashSet<String>::new))
+                .child("Chainsaw").addTo(Character::getWeaknesses)
+                .child("Boomstick").addTo(Character::getWeaknesses)
+            .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Henrietta")
+            .child(Character::new)
+                .child(CharacterType.DEMON).onto(Character::setType)
+                .child("Dagger of Kandar").addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, LinkedHashSet<String>::new))
+            .into(Franchise::getCharacters).at("Deadite");
+        // @formatter:on
+    }
+
+    @Benchmark
+    public Franchise blueprint() {
+        return blueprint.get();
+    }
+
+    @Benchmark
+    public Franchise handwritten() {
+        final Franchise result = new Franchise();
+        result.setName("Evil Dead");
+        result.getInfo().setOriginated(Year.of(1981));
+
+        final Map<String, Character> characters = new TreeMap<>();
+        result.setCharacters(characters);
+
+        final Character henrietta = new Character();
+        henrietta.setType(CharacterType.UNDEAD);
+        final Set<String> henriettaWeaknesses = new LinkedHashSet<>();
+        henrietta.setWeaknesses(henriettaWeaknesses);
+        henriettaWeaknesses.add("Book");
+        henriettaWeaknesses.add("Chainsaw");
+        henriettaWeaknesses.add("Boomstick");
+        characters.put("Henrietta", henrietta);
+
+        final Character deadite = new Character();
+        deadite.setType(CharacterType.DEMON);
+        final Set<String> deaditeWeaknesses = new LinkedHashSet<>();
+        deadite.setWeaknesses(deaditeWeaknesses);
+        deaditeWeaknesses.add("Dagger of Kandar");
+        characters.put("Deadite", deadite);
+
+        return result;
+    }
+}
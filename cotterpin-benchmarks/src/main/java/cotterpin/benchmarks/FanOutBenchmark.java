@@ -0,0 +1,124 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.benchmarks;
+
+import static cotterpin.BuildStrategy.prototype;
+import static cotterpin.ComponentStrategy.ifNull;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import acme.Character;
+import acme.CharacterType;
+import acme.Franchise;
+import cotterpin.Cotterpin;
+
+/**
+ * Wide fan-out: many siblings attached to the same parent component via
+ * {@code addTo} and {@code into(...).at(...)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FanOutBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    int width;
+
+    String[] keys;
+    Supplier<Character> addTo;
+    Supplier<Franchise> into;
+
+    @Setup
+    public void setup() {
+        keys = new String[width];
+        for (int i = 0; i < width; i++) {
+            keys[i] = "k" + i;
+        }
+        // @formatter:off
+        addTo = Cotterpin.build(prototype(), Character::new)
+            .times(width, (b, i) ->
+                b.child(keys[i]).addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, LinkedHashSet<String>::new))
+            );
+
+        into = Cotterpin.build(prototype(), Franchise::new)
+            .times(width, (b, i) ->
+                b.child(Character::new)
+                    .child(CharacterType.GHOST).onto(Character::setType)
+                .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, HashMap::new)).at(keys[i])
+            );
+        // @formatter:on
+    }
+
+    @Benchmark
+    public Character addTo() {
+        return addTo.get();
+    }
+
+    @Benchmark
+    public Character handwrittenAddTo() {
+        final Character result = new Character();
+        for (String key : keys) {
+            Set<String> weaknesses = result.getWeaknesses();
+            if (weaknesses == null) {
+                weaknesses = new LinkedHashSet<>();
+                result.setWeaknesses(weaknesses);
+            }
+            weaknesses.add(key);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Franchise into() {
+        return into.get();
+    }
+
+    @Benchmark
+    public Franchise handwrittenInto() {
+        final Franchise result = new Franchise();
+        for (String key : keys) {
+            final Character character = new Character();
+            character.setType(CharacterType.GHOST);
+            Map<String, Character> characters = result.getCharacters();
+            if (characters == null) {
+                characters = new HashMap<>();
+                result.setCharacters(characters);
+            }
+            characters.put(key, character);
+        }
+        return result;
+    }
+}
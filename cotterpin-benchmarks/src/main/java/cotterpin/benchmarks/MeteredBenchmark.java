@@ -0,0 +1,91 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.benchmarks;
+
+import static cotterpin.BuildStrategy.prototype;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import acme.Franchise;
+import cotterpin.BuildStrategy;
+import cotterpin.Cotterpin;
+
+/**
+ * Overhead of {@link BuildStrategy#metered(String, BuildStrategy)}, enabled
+ * and disabled, over an unmetered prototype.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeteredBenchmark {
+
+    Supplier<Franchise> plain;
+    BuildStrategy.Metered<Franchise> enabledStrategy;
+    Supplier<Franchise> enabled;
+    BuildStrategy.Metered<Franchise> disabledStrategy;
+    Supplier<Franchise> disabled;
+
+    @Setup
+    public void setup() {
+        plain = define(prototype());
+        enabledStrategy = BuildStrategy.metered("benchmark.enabled", prototype());
+        enabled = define(enabledStrategy);
+        disabledStrategy = BuildStrategy.metered("benchmark.disabled", prototype());
+        disabledStrategy.metrics().setEnabled(false);
+        disabled = define(disabledStrategy);
+    }
+
+    @TearDown
+    public void tearDown() {
+        enabledStrategy.close();
+        disabledStrategy.close();
+    }
+
+    private static Supplier<Franchise> define(BuildStrategy<Franchise> strategy) {
+        return Cotterpin.build(strategy, Franchise::new).child("Saw").onto(Franchise::setName).compile();
+    }
+
+    @Benchmark
+    public Franchise plain() {
+        return plain.get();
+    }
+
+    @Benchmark
+    public Franchise enabled() {
+        return enabled.get();
+    }
+
+    @Benchmark
+    public Franchise disabled() {
+        return disabled.get();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.benchmarks;
+
+import static cotterpin.BuildStrategy.prototype;
+import static cotterpin.ComponentStrategy.ifNull;
+
+import java.time.Year;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import acme.Franchise;
+import cotterpin.Cotterpin;
+
+/**
+ * Chains of {@code mutate(...).onto(...)} component steps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MutateBenchmark {
+
+    @Param({ "1", "10", "100" })
+    int length;
+
+    Year[] years;
+    Supplier<Franchise> blueprint;
+
+    @Setup
+    public void setup() {
+        years = new Year[length];
+        for (int i = 0; i < length; i++) {
+            years[i] = Year.of(1978 + i);
+        }
+        // @formatter:off
+        blueprint = Cotterpin.build(prototype(), Franchise::new)
+            .times(length, (b, i) ->
+                b.mutate(Franchise.Info.class)
+                    .child(years[i]).onto(Franchise.Info::setOriginated)
+                .onto(Franchise::getInfo, ifNull(Franchise::setInfo, Franchise.Info::new))
+            );
+        // @formatter:on
+    }
+
+    @Benchmark
+    public Franchise blueprint() {
+        return blueprint.get();
+    }
+
+    @Benchmark
+    public Franchise handwritten() {
+        final Franchise result = new Franchise();
+        for (Year year : years) {
+            Franchise.Info info = result.getInfo();
+            if (info == null) {
+                info = new Franchise.Info();
+                result.setInfo(info);
+            }
+            info.setOriginated(year);
+        }
+        return result;
+    }
+}
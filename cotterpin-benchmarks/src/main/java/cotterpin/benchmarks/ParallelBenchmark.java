@@ -0,0 +1,102 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.benchmarks;
+
+import static cotterpin.BuildStrategy.prototype;
+import static cotterpin.ComponentStrategy.ifNull;
+
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import acme.Character;
+import acme.CharacterType;
+import acme.Franchise;
+import cotterpin.BuildStrategy;
+import cotterpin.Cotterpin;
+
+/**
+ * {@link BuildStrategy#parallel(ForkJoinPool, int)} vs. prototype builds of a
+ * wide graph whose child suppliers are expensive.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    int width;
+
+    @Param({ "0", "1000" })
+    int cost;
+
+    @Param({ "1", "16" })
+    int granularity;
+
+    Supplier<Franchise> sequential;
+    Supplier<Franchise> parallel;
+
+    @Setup
+    public void setup() {
+        sequential = define(prototype());
+        parallel = define(BuildStrategy.parallel(ForkJoinPool.commonPool(), granularity));
+    }
+
+    private Supplier<Franchise> define(BuildStrategy<Franchise> strategy) {
+        final int tokens = cost;
+        final Supplier<Character> character = () -> {
+            Blackhole.consumeCPU(tokens);
+            return new Character();
+        };
+        // @formatter:off
+        return Cotterpin.build(strategy, Franchise::new)
+            .child("Evil Dead").onto(Franchise::setName)
+            .times(width, (b, i) ->
+                b.child(character)
+                    .child(CharacterType.UNDEAD).onto(Character::setType)
+                .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, HashMap::new)).at("Deadite" + i)
+            )
+            .compile();
+        // @formatter:on
+    }
+
+    @Benchmark
+    public Franchise sequential() {
+        return sequential.get();
+    }
+
+    @Benchmark
+    public Franchise parallel() {
+        return parallel.get();
+    }
+}
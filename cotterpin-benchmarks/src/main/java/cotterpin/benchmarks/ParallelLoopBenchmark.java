@@ -0,0 +1,81 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.benchmarks;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cotterpin.BuildStrategy;
+import cotterpin.Cotterpin;
+
+/**
+ * Compact {@code times} loops populating a {@link ConcurrentHashMap} under
+ * {@link BuildStrategy#parallel(ForkJoinPool, int)} vs. prototype builds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelLoopBenchmark {
+
+    @Param({ "10000", "1000000" })
+    int size;
+
+    Supplier<ConcurrentHashMap<Integer, String>> sequential;
+    Supplier<ConcurrentHashMap<Integer, String>> parallel;
+
+    @Setup
+    public void setup() {
+        sequential = define(BuildStrategy.prototype());
+        parallel = define(BuildStrategy.parallel());
+    }
+
+    private Supplier<ConcurrentHashMap<Integer, String>> define(
+            BuildStrategy<ConcurrentHashMap<Integer, String>> strategy) {
+        final int n = size;
+        // @formatter:off
+        return Cotterpin.buildMap(strategy, () -> new ConcurrentHashMap<Integer, String>(n * 2))
+            .parallel().attachTimes(n, i -> "Deadite" + i, (m, v) -> m.put(v.hashCode(), v))
+            .compile();
+        // @formatter:on
+    }
+
+    @Benchmark
+    public ConcurrentHashMap<Integer, String> sequential() {
+        return sequential.get();
+    }
+
+    @Benchmark
+    public ConcurrentHashMap<Integer, String> parallel() {
+        return parallel.get();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.benchmarks;
+
+import static cotterpin.BuildStrategy.prototype;
+import static cotterpin.ComponentStrategy.ifNull;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import acme.Character;
+import acme.CharacterType;
+import acme.Franchise;
+import cotterpin.Blueprint;
+import cotterpin.BuildStrategy;
+import cotterpin.Cotterpin;
+
+/**
+ * {@link BuildStrategy#pooled(int, java.util.function.Consumer)} leases vs.
+ * prototype builds of the same graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PooledBenchmark {
+
+    Supplier<Franchise> prototype;
+    BuildStrategy.Pooled<Franchise> pool;
+
+    @Setup
+    public void setup() {
+        prototype = define(prototype());
+        // the plan overwrites all graph state, so no reset is required:
+        pool = BuildStrategy.pooled(16, f -> {
+        });
+        define(pool);
+    }
+
+    private static Blueprint.Root<Franchise, ?> define(BuildStrategy<Franchise> strategy) {
+        // @formatter:off
+        return Cotterpin.build(strategy, Franchise::new)
+            .child("Friday the 13th").onto(Franchise::setName)
+            .times(4, (b, i) ->
+                b.child(Character::new)
+                    .child(CharacterType.SLASHER).onto(Character::setType)
+                .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, HashMap::new)).at("Jason" + i)
+            )
+            .compile();
+        // @formatter:on
+    }
+
+    @Benchmark
+    public Franchise prototypeGet() {
+        return prototype.get();
+    }
+
+    @Benchmark
+    public void pooledLease(Blackhole blackhole) {
+        try (BuildStrategy.Pooled.Lease<Franchise> lease = pool.lease()) {
+            blackhole.consume(lease.get());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.benchmarks;
+
+import static cotterpin.BuildStrategy.prototype;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import acme.Character;
+import acme.CharacterType;
+import acme.Franchise;
+import cotterpin.Cotterpin;
+
+/**
+ * Simple root blueprints under the singleton and prototype build strategies.
+ * The singleton case necessarily includes blueprint definition.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RootBenchmark {
+
+    Supplier<Franchise> franchise;
+    Supplier<Character> character;
+
+    @Setup
+    public void setup() {
+        // @formatter:off
+        franchise = Cotterpin.build(prototype(), Franchise::new)
+            .child("Psycho").onto(Franchise::setName)
+            .child("Shamley").map(Optional::of).onto(Franchise::maybeSetStudio);
+
+        character = Cotterpin.build(prototype(), Character::new)
+            .child(CharacterType.SLASHER).onto(Character::setType);
+        // @formatter:on
+    }
+
+    @Benchmark
+    public Franchise singletonFranchise() {
+        // @formatter:off
+        return Cotterpin.build(Franchise::new)
+            .child("Psycho").onto(Franchise::setName)
+            .child("Shamley").map(Optional::of).onto(Franchise::maybeSetStudio)
+        .get();
+        // @formatter:on
+    }
+
+    @Benchmark
+    public Franchise prototypeFranchise() {
+        return franchise.get();
+    }
+
+    @Benchmark
+    public Franchise handwrittenFranchise() {
+        final Franchise result = new Franchise();
+        result.setName("Psycho");
+        result.maybeSetStudio(Optional.of("Shamley"));
+        return result;
+    }
+
+    @Benchmark
+    public Character singletonCharacter() {
+        return Cotterpin.build(Character::new).child(CharacterType.SLASHER).onto(Character::setType).get();
+    }
+
+    @Benchmark
+    public Character prototypeCharacter() {
+        return character.get();
+    }
+
+    @Benchmark
+    public Character handwrittenCharacter() {
+        final Character result = new Character();
+        result.setType(CharacterType.SLASHER);
+        return result;
+    }
+}
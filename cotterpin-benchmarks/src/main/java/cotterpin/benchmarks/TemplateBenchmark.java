@@ -0,0 +1,112 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.benchmarks;
+
+import static cotterpin.BuildStrategy.prototype;
+import static cotterpin.ComponentStrategy.ifNull;
+
+import java.time.Year;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import acme.Character;
+import acme.CharacterType;
+import acme.Franchise;
+import cotterpin.BuildStrategy;
+import cotterpin.Cotterpin;
+
+/**
+ * {@link BuildStrategy#template(java.util.function.UnaryOperator)} copies vs.
+ * prototype replay of the same graph, as the graph widens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateBenchmark {
+
+    @Param({ "1", "10", "100", "1000" })
+    int width;
+
+    Supplier<Franchise> replay;
+    Supplier<Franchise> copy;
+
+    @Setup
+    public void setup() {
+        replay = define(prototype());
+        copy = define(BuildStrategy.template(TemplateBenchmark::copy));
+    }
+
+    private Supplier<Franchise> define(BuildStrategy<Franchise> strategy) {
+        // @formatter:off
+        return Cotterpin.build(strategy, Franchise::new)
+            .child("Evil Dead").onto(Franchise::setName)
+            .mutate(Franchise.Info.class)
+                .child(Year.of(1981)).onto(Franchise.Info::setOriginated)
+            .onto(Franchise::getInfo)
+            .times(width, (b, i) ->
+                b.child(Character::new)
+                    .child(CharacterType.UNDEAD).onto(Character::setType)
+                    .child("Book").addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, LinkedHashSet<String>::new))
+                    .child("Chainsaw").addTo(Character::getWeaknesses)
+                .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, HashMap::new)).at("Deadite" + i)
+            )
+            .compile();
+        // @formatter:on
+    }
+
+    private static Franchise copy(Franchise f) {
+        final Franchise result = new Franchise();
+        result.setName(f.getName());
+        result.getInfo().setOriginated(f.getInfo().getOriginated());
+        final Map<String, Character> characters = new HashMap<>(f.getCharacters());
+        characters.replaceAll((k, c) -> {
+            final Character character = new Character();
+            character.setType(c.getType());
+            character.setWeaknesses(new LinkedHashSet<>(c.getWeaknesses()));
+            return character;
+        });
+        result.setCharacters(characters);
+        return result;
+    }
+
+    @Benchmark
+    public Franchise replay() {
+        return replay.get();
+    }
+
+    @Benchmark
+    public Franchise copy() {
+        return copy.get();
+    }
+}
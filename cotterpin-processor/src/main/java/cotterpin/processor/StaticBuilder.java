@@ -0,0 +1,68 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a static blueprint field for which {@link StaticBuilderProcessor}
+ * generates, in the same package, a builder class with straight-line
+ * constructor and setter calls. The generated class implements
+ * {@link java.util.function.Supplier} and offers a static {@code build()}
+ * method; each build behaves as the {@code get()} of the blueprint itself.
+ * <p>
+ * The field initializer must be a single fluent chain rooted in
+ * {@code Cotterpin.build(prototype(), ...)}, using only {@code child},
+ * {@code then}, {@code onto}, {@code addTo}, {@code into}/{@code at} (with
+ * optional {@code ifNull} component strategies) and {@code compile}.
+ * Constructor and method references become direct calls. Any other construct
+ * is reported as a compilation error.
+ * <p>
+ * Other values and functions, lambdas included, are copied as source into
+ * constant fields of the generated class, resolved against the imports of the
+ * declaring source and the members of the declaring class, so they may only
+ * refer to types and members visible from the generated class. Note that:
+ * <ul>
+ * <li>each copy is evaluated once, when the generated class is initialized,
+ * and then shared by all its builds as the blueprint shares its own; the two
+ * evaluations are separate, so a copied {@code new Info()} yields an instance
+ * distinct from that of the blueprint, and an expression with side effects
+ * has them twice.</li>
+ * <li>a copy referring to a member of the declaring class initializes that
+ * class, and with it the annotated blueprint, when the generated class is
+ * initialized.</li>
+ * </ul>
+ * Blueprints whose values and functions are literals, enum constants and
+ * method references avoid both.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface StaticBuilder {
+
+    /**
+     * Simple name of the generated class. Defaults to the camel-cased field name
+     * followed by {@code Builder}, e.g. {@code EVIL_DEAD} yields
+     * {@code EvilDeadBuilder}.
+     *
+     * @return {@link String}
+     */
+    String value() default "";
+}
@@ -0,0 +1,170 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+
+/**
+ * Generates a static builder for each {@link StaticBuilder} field. Requires
+ * {@code javac} 9 or later, whose tree API is used to read the blueprint
+ * definitions.
+ */
+@SupportedAnnotationTypes("cotterpin.processor.StaticBuilder")
+public class StaticBuilderProcessor extends AbstractProcessor {
+
+    private Trees trees;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        try {
+            trees = Trees.instance(processingEnv);
+        } catch (IllegalArgumentException e) {
+            trees = null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element e : roundEnv.getElementsAnnotatedWith(StaticBuilder.class)) {
+            generate((VariableElement) e);
+        }
+        return true;
+    }
+
+    private void generate(VariableElement field) {
+        if (trees == null) {
+            error("@StaticBuilder requires javac", field);
+            return;
+        }
+        if (!field.getModifiers().contains(Modifier.STATIC)) {
+            error("@StaticBuilder field must be static", field);
+            return;
+        }
+        final TreePath path = trees.getPath(field);
+        final VariableTree tree = (VariableTree) path.getLeaf();
+        if (tree.getInitializer() == null) {
+            error("@StaticBuilder field must be initialized", field);
+            return;
+        }
+        final CompilationUnitTree unit = path.getCompilationUnit();
+        final Translation translation = new Translation(trees, processingEnv.getTypeUtils(),
+                processingEnv.getElementUtils(), unit);
+        try {
+            translation.translate(new TreePath(path, tree.getInitializer()));
+        } catch (Translation.UnsupportedException e) {
+            trees.printMessage(Diagnostic.Kind.ERROR, e.getMessage(), e.tree, unit);
+            return;
+        }
+        final TypeElement owner = (TypeElement) field.getEnclosingElement();
+        final String pkg = processingEnv.getElementUtils().getPackageOf(owner).getQualifiedName().toString();
+        final String name = name(field);
+
+        try (Writer w = processingEnv.getFiler().createSourceFile(pkg.isEmpty() ? name : pkg + '.' + name, field)
+                .openWriter()) {
+            w.write(source(unit, owner, field, pkg, name, translation));
+        } catch (IOException e) {
+            error("Unable to generate " + name + ": " + e, field);
+        }
+    }
+
+    private String source(CompilationUnitTree unit, TypeElement owner, VariableElement field, String pkg,
+            String name, Translation translation) {
+        final StringBuilder result = new StringBuilder();
+        if (!pkg.isEmpty()) {
+            result.append("package ").append(pkg).append(";\n\n");
+        }
+        // constants are copied from, and so resolved as in, the defining source:
+        for (ImportTree i : unit.getImports()) {
+            result.append(i.toString().trim()).append('\n');
+        }
+        if (!pkg.isEmpty() && !owner.getModifiers().contains(Modifier.PRIVATE)) {
+            result.append("import ").append(owner.getQualifiedName()).append(".*;\n");
+            result.append("import static ").append(owner.getQualifiedName()).append(".*;\n");
+        }
+        final String type = translation.type();
+        result.append("\n/**\n * Static builder of {@code ").append(owner.getQualifiedName()).append('#')
+                .append(field.getSimpleName()).append("}.\n */\n");
+        result.append("@SuppressWarnings(\"all\")\n");
+        result.append("public final class ").append(name).append(" implements java.util.function.Supplier<")
+                .append(type).append("> {\n");
+        final String constants = translation.constants();
+        if (!constants.isEmpty()) {
+            result.append(constants).append('\n');
+        }
+        result.append("    /**\n     * Build a new instance.\n     *\n     * @return built object\n     */\n");
+        result.append("    public static ").append(type).append(" build() {\n").append(translation.statements())
+                .append("    }\n\n");
+        result.append("    @Override\n    public ").append(type).append(" get() {\n        return build();\n    }\n");
+        return result.append("}\n").toString();
+    }
+
+    private static String name(VariableElement field) {
+        final String value = field.getAnnotation(StaticBuilder.class).value();
+        if (!value.isEmpty()) {
+            return value;
+        }
+        final String f = field.getSimpleName().toString();
+        final StringBuilder result = new StringBuilder();
+        if (f.equals(f.toUpperCase())) {
+            for (String word : f.split("_")) {
+                if (!word.isEmpty()) {
+                    result.append(word.charAt(0)).append(word.substring(1).toLowerCase());
+                }
+            }
+        } else {
+            result.append(Character.toUpperCase(f.charAt(0))).append(f.substring(1));
+        }
+        return result.append("Builder").toString();
+    }
+
+    private void error(String message, Element e) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, e);
+    }
+}
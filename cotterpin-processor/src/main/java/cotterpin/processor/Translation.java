@@ -0,0 +1,411 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.processor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberReferenceTree.ReferenceMode;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+
+/**
+ * Translation of a blueprint definition, i.e. a fluent chain of calls, into the
+ * statements of a static builder. Each blueprint node becomes a local variable,
+ * assigned as the runtime assigns it and mutated by its steps in declaration
+ * order; subordinate nodes are built at the point where they are attached.
+ */
+class Translation {
+
+    /**
+     * Signals a construct which cannot be translated.
+     */
+    static class UnsupportedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final transient Tree tree;
+
+        UnsupportedException(Tree tree, String message) {
+            super(message);
+            this.tree = tree;
+        }
+    }
+
+    private final Trees trees;
+    private final Types types;
+    private final Elements elements;
+    private final CompilationUnitTree unit;
+    private final StringBuilder constants = new StringBuilder();
+    private final StringBuilder statements = new StringBuilder();
+    private int fields;
+    private int locals;
+    private String type;
+
+    /**
+     * Create a new {@link Translation} instance.
+     *
+     * @param trees    {@link Trees}
+     * @param types    {@link Types}
+     * @param elements {@link Elements}
+     * @param unit     {@link CompilationUnitTree} of the blueprint definition
+     */
+    Translation(Trees trees, Types types, Elements elements, CompilationUnitTree unit) {
+        this.trees = trees;
+        this.types = types;
+        this.elements = elements;
+        this.unit = unit;
+    }
+
+    /**
+     * Translate a blueprint definition.
+     *
+     * @param blueprint {@link TreePath} of the defining expression
+     * @throws UnsupportedException if the definition cannot be translated
+     */
+    void translate(TreePath blueprint) {
+        // annotation processing precedes attribution; obtaining a scope attributes the expression:
+        trees.getScope(blueprint);
+
+        final ExpressionTree definition = (ExpressionTree) blueprint.getLeaf();
+        final Deque<MethodInvocationTree> chain = new ArrayDeque<>();
+        for (ExpressionTree e = definition; e instanceof MethodInvocationTree;) {
+            final MethodInvocationTree call = (MethodInvocationTree) e;
+            chain.push(call);
+            final ExpressionTree select = call.getMethodSelect();
+            e = select instanceof MemberSelectTree ? ((MemberSelectTree) select).getExpression() : null;
+        }
+        if (chain.isEmpty()) {
+            throw new UnsupportedException(definition, "blueprint must be defined by a fluent chain of calls");
+        }
+        final Deque<String> nodes = new ArrayDeque<>();
+        nodes.push(root(chain.pop()));
+
+        String map = null;
+        String value = null;
+        for (MethodInvocationTree call : chain) {
+            final ExecutableElement method = method(call);
+            final String name = method.getSimpleName().toString();
+            final List<? extends ExpressionTree> args = call.getArguments();
+            if (!elements.getPackageOf(method).getQualifiedName().contentEquals("cotterpin")) {
+                throw new UnsupportedException(call, "cannot translate " + name + "()");
+            }
+            if (map != null) {
+                if (!"at".equals(name)) {
+                    throw new UnsupportedException(call, "expected at()");
+                }
+                final ExpressionTree key = args.get(0);
+                statement(map + ".put(" + (isSupplier(method) ? supply(key) : constant(key)) + ", " + value + ')');
+                map = null;
+                continue;
+            }
+            switch (name) {
+            case "child":
+            case "$$":
+                nodes.push(child(call, method));
+                break;
+            case "then":
+                statement(invoke(args.get(0), "accept", nodes.peek()));
+                break;
+            case "onto":
+            case "addTo":
+            case "into":
+                if (nodes.size() < 2) {
+                    throw new UnsupportedException(call, "cannot translate " + name + "()");
+                }
+                value = nodes.pop();
+                final String parent = nodes.peek();
+                if ("onto".equals(name)) {
+                    statement(invoke(args.get(0), "accept", parent, value));
+                } else if ("addTo".equals(name)) {
+                    statement(component(call, parent) + ".add(" + value + ')');
+                } else {
+                    map = component(call, parent);
+                }
+                break;
+            case "compile":
+                break;
+            default:
+                throw new UnsupportedException(call, "cannot translate " + name + "()");
+            }
+        }
+        if (map != null || nodes.size() > 1) {
+            throw new UnsupportedException(definition, "incomplete blueprint");
+        }
+        statement("return " + nodes.pop());
+    }
+
+    /**
+     * Get the built type.
+     *
+     * @return {@link String}
+     */
+    String type() {
+        return type;
+    }
+
+    /**
+     * Get the declarations of the constants used by the builder.
+     *
+     * @return {@link String}
+     */
+    String constants() {
+        return constants.toString();
+    }
+
+    /**
+     * Get the statements of the builder.
+     *
+     * @return {@link String}
+     */
+    String statements() {
+        return statements.toString();
+    }
+
+    private String root(MethodInvocationTree call) {
+        final ExecutableElement method = method(call);
+        if (!method.getSimpleName().contentEquals("build") || !isCotterpin(method, "Cotterpin")
+                || call.getArguments().size() != 2 || !isSupplier(method)
+                || !isCall(call.getArguments().get(0), "BuildStrategy", "prototype")) {
+            throw new UnsupportedException(call, "blueprint must begin with Cotterpin.build(prototype(), ...)");
+        }
+        final ExpressionTree target = call.getArguments().get(1);
+        final TypeMirror built = typeArgument(target, typeOf(target), "java.util.function.Supplier", 0);
+        type = typeName(target, built);
+        return declare(target, built, supply(target));
+    }
+
+    private String child(MethodInvocationTree call, ExecutableElement method) {
+        final ExpressionTree arg = call.getArguments().get(0);
+        if (isSupplier(method)) {
+            return declare(arg, typeArgument(arg, typeOf(arg), "java.util.function.Supplier", 0), supply(arg));
+        }
+        if (method.getParameters().get(0).asType().getKind() != TypeKind.TYPEVAR) {
+            throw new UnsupportedException(call, "cannot translate child(" + method.getParameters().get(0).asType() + ')');
+        }
+        return declare(arg, typeOf(arg), constant(arg));
+    }
+
+    // resolve the component named by the accessor and optional ComponentStrategy arguments of call:
+    private String component(MethodInvocationTree call, String parent) {
+        final List<? extends ExpressionTree> args = call.getArguments();
+        final String access = invoke(args.get(0), "apply", parent);
+        if (args.size() == 1 || isCall(args.get(1), "ComponentStrategy", "noop")) {
+            return access;
+        }
+        final ExpressionTree strategy = args.get(1);
+        if (!isCall(strategy, "ComponentStrategy", "ifNull")) {
+            throw new UnsupportedException(strategy, "only ifNull() component strategies can be translated");
+        }
+        final List<? extends ExpressionTree> ifNull = ((MethodInvocationTree) strategy).getArguments();
+        final String result = "c" + locals++;
+        statement(typeName(strategy, typeArgument(strategy, typeOf(strategy), "cotterpin.ComponentStrategy", 1))
+                + ' ' + result + " = " + access);
+        line("if (" + result + " == null) {");
+        line("    " + result + " = " + supply(ifNull.get(1)) + ';');
+        line("    " + invoke(ifNull.get(0), "accept", parent, result) + ';');
+        line("}");
+        return result;
+    }
+
+    private String declare(Tree tree, TypeMirror t, String value) {
+        final String result = "v" + locals++;
+        statement("final " + typeName(tree, t) + ' ' + result + " = " + value);
+        return result;
+    }
+
+    // obtain a value from a Supplier expression:
+    private String supply(ExpressionTree supplier) {
+        if (supplier instanceof MemberReferenceTree
+                && ((MemberReferenceTree) supplier).getMode() == ReferenceMode.NEW) {
+            final Element ctor = trees.getElement(path(supplier));
+            if (ctor instanceof ExecutableElement && ((ExecutableElement) ctor).getParameters().isEmpty()
+                    && isAccessible(ctor)) {
+                final TypeElement owner = (TypeElement) ctor.getEnclosingElement();
+                if (owner.getNestingKind() == NestingKind.TOP_LEVEL
+                        || owner.getModifiers().contains(Modifier.STATIC)) {
+                    return "new " + types.erasure(owner.asType())
+                            + (owner.getTypeParameters().isEmpty() ? "" : "<>") + "()";
+                }
+            }
+        }
+        return invoke(supplier, "get");
+    }
+
+    // obtain a value evaluated once by the blueprint; a hoisted copy is evaluated anew, once per generated class:
+    private String constant(ExpressionTree value) {
+        if (value instanceof LiteralTree && value.getKind() != Tree.Kind.NULL_LITERAL) {
+            return value.toString();
+        }
+        final Element e = trees.getElement(path(value));
+        if (e != null && e.getKind() == ElementKind.ENUM_CONSTANT) {
+            return types.erasure(e.getEnclosingElement().asType()) + "." + e.getSimpleName();
+        }
+        return hoist(value, "K");
+    }
+
+    // invoke function via its single abstract method sam:
+    private String invoke(ExpressionTree function, String sam, String... args) {
+        if (function instanceof MemberReferenceTree
+                && ((MemberReferenceTree) function).getMode() == ReferenceMode.INVOKE) {
+            final Element e = trees.getElement(path(function));
+            if (e instanceof ExecutableElement && !((ExecutableElement) e).isVarArgs() && isAccessible(e)) {
+                final int arity = ((ExecutableElement) e).getParameters().size();
+                final String name = e.getSimpleName().toString();
+                if (e.getModifiers().contains(Modifier.STATIC)) {
+                    if (arity == args.length) {
+                        return types.erasure(e.getEnclosingElement().asType()) + "." + name + arguments(args, 0);
+                    }
+                } else if (arity == args.length - 1
+                        && isType(((MemberReferenceTree) function).getQualifierExpression())) {
+                    return args[0] + "." + name + arguments(args, 1);
+                }
+            }
+        }
+        return hoist(function, "F") + "." + sam + arguments(args, 0);
+    }
+
+    // copy expression into a constant field, initialized with (and possibly initializing the owner of) the builder:
+    private String hoist(ExpressionTree expression, String prefix) {
+        final String result = prefix + fields++;
+        constants.append("    private static final ").append(typeName(expression, typeOf(expression))).append(' ')
+                .append(result).append(" = ").append(expression).append(";\n");
+        return result;
+    }
+
+    private ExecutableElement method(MethodInvocationTree call) {
+        final Element result = trees.getElement(path(call.getMethodSelect()));
+        if (result instanceof ExecutableElement) {
+            return (ExecutableElement) result;
+        }
+        throw new UnsupportedException(call, "unresolved method " + call.getMethodSelect());
+    }
+
+    private boolean isCotterpin(ExecutableElement method, String type) {
+        return ((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals("cotterpin." + type);
+    }
+
+    private boolean isCall(ExpressionTree tree, String type, String name) {
+        if (tree instanceof MethodInvocationTree) {
+            final ExecutableElement method = method((MethodInvocationTree) tree);
+            return method.getSimpleName().contentEquals(name) && isCotterpin(method, type);
+        }
+        return false;
+    }
+
+    // whether the last parameter of method is a Supplier:
+    private boolean isSupplier(ExecutableElement method) {
+        final TypeMirror t = method.getParameters().get(method.getParameters().size() - 1).asType();
+        return t.getKind() == TypeKind.DECLARED && ((TypeElement) ((DeclaredType) t).asElement()).getQualifiedName()
+                .contentEquals("java.util.function.Supplier");
+    }
+
+    private boolean isType(ExpressionTree tree) {
+        final Element e = trees.getElement(path(tree));
+        return e != null && (e.getKind().isClass() || e.getKind().isInterface());
+    }
+
+    private boolean isAccessible(Element e) {
+        return !e.getModifiers().contains(Modifier.PRIVATE);
+    }
+
+    private TypeMirror typeOf(ExpressionTree tree) {
+        final TypeMirror result = trees.getTypeMirror(path(tree));
+        if (result == null || result.getKind() == TypeKind.ERROR) {
+            throw new UnsupportedException(tree, "unresolved type of " + tree);
+        }
+        return result;
+    }
+
+    private TypeMirror typeArgument(Tree tree, TypeMirror t, String type, int index) {
+        final TypeElement target = elements.getTypeElement(type);
+        final Deque<TypeMirror> queue = new ArrayDeque<>();
+        queue.add(t);
+        while (!queue.isEmpty()) {
+            final TypeMirror next = queue.pop();
+            if (next.getKind() == TypeKind.DECLARED && ((DeclaredType) next).asElement().equals(target)) {
+                final List<? extends TypeMirror> args = ((DeclaredType) next).getTypeArguments();
+                if (args.isEmpty()) {
+                    break;
+                }
+                return args.get(index);
+            }
+            queue.addAll(types.directSupertypes(next));
+        }
+        throw new UnsupportedException(tree, "cannot determine type argument " + index + " of " + type);
+    }
+
+    // denotable source name of a reference type:
+    private String typeName(Tree tree, TypeMirror t) {
+        TypeMirror u = t;
+        if (u.getKind() == TypeKind.WILDCARD) {
+            final TypeMirror bound = ((WildcardType) u).getExtendsBound();
+            u = bound == null ? elements.getTypeElement("java.lang.Object").asType() : bound;
+        }
+        if (u.getKind().isPrimitive()) {
+            u = types.boxedClass((PrimitiveType) u).asType();
+        }
+        final String result = u.toString();
+        if ((u.getKind() != TypeKind.DECLARED && u.getKind() != TypeKind.ARRAY) || result.contains("capture#")) {
+            throw new UnsupportedException(tree, "cannot denote type " + result);
+        }
+        return result;
+    }
+
+    private TreePath path(Tree tree) {
+        return TreePath.getPath(unit, tree);
+    }
+
+    private void statement(String statement) {
+        line(statement + ';');
+    }
+
+    private void line(String line) {
+        statements.append("        ").append(line).append('\n');
+    }
+
+    private static String arguments(String[] args, int from) {
+        final StringBuilder result = new StringBuilder("(");
+        for (int i = from; i < args.length; i++) {
+            if (i > from) {
+                result.append(", ");
+            }
+            result.append(args[i]);
+        }
+        return result.append(')').toString();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.processor;
+
+import static cotterpin.BuildStrategy.prototype;
+import static cotterpin.ComponentStrategy.ifNull;
+
+import java.time.Year;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import acme.Character;
+import acme.CharacterType;
+import acme.Franchise;
+import acme.Franchise.Info;
+import cotterpin.Blueprint;
+import cotterpin.Cotterpin;
+
+/**
+ * Blueprints translated by {@link StaticBuilderProcessor} as the tests are
+ * compiled.
+ */
+class Blueprints {
+
+    // @formatter:off
+    @StaticBuilder
+    static final Blueprint.Root<Franchise, ?> EVIL_DEAD = Cotterpin.build(prototype(), Franchise::new)
+        .child("Evil Dead").onto(Franchise::setName)
+        .child(Info::new)
+            .child(Year.of(1981)).onto(Info::setOriginated)
+        .onto(Franchise::setInfo)
+        .child(Character::new)
+            .child(CharacterType.UNDEAD).onto(Character::setType)
+            .child("Book").addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, LinkedHashSet<String>::new))
+            .child("Chainsaw").addTo(Character::getWeaknesses)
+        .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Henrietta")
+        .compile();
+
+    @StaticBuilder("Slasher")
+    static final Blueprint.Root<Franchise, ?> SCREAM = Cotterpin.build(prototype(), () -> new Franchise())
+        .child(() -> "Scr" + "eam").onto((f, n) -> f.setName(n))
+        .child(new Info()).onto(Franchise::setInfo)
+        .child(Character::new)
+            .then(c -> c.setType(CharacterType.SLASHER))
+            .child(weakness()).addTo(c -> c.getWeaknesses(), ifNull(Character::setWeaknesses, () -> new TreeSet<>()))
+        .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, LinkedHashMap::new)).at(() -> "Ghost" + "face")
+        .then(f -> f.maybeSetStudio(Optional.of("Dimension Films")));
+    // @formatter:on
+
+    static String weakness() {
+        return "Phone";
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.lang3.Validate;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import acme.Franchise;
+import cotterpin.Blueprint;
+
+public class StaticBuilderTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testEquivalentBuilds() {
+        assertEquivalent(Blueprints.EVIL_DEAD, new EvilDeadBuilder());
+        assertEquivalent(Blueprints.SCREAM, new Slasher());
+    }
+
+    @Test
+    public void testConstantsEvaluatedOnce() {
+        assertThat(Blueprints.SCREAM.get().getInfo()).isSameAs(Blueprints.SCREAM.get().getInfo());
+        assertThat(Slasher.build().getInfo()).isSameAs(Slasher.build().getInfo());
+        // copied, not shared with the blueprint:
+        assertThat(Slasher.build().getInfo()).isNotSameAs(Blueprints.SCREAM.get().getInfo());
+        assertThat(EvilDeadBuilder.build().getInfo()).isNotSameAs(EvilDeadBuilder.build().getInfo());
+    }
+
+    @Test
+    public void testUnsupported() throws Exception {
+        final String source = String.join("\n", "package x;", "import static cotterpin.BuildStrategy.*;",
+                "import acme.Franchise;", "import cotterpin.*;", "import cotterpin.processor.StaticBuilder;",
+                "class Bad {", "    @StaticBuilder",
+                "    static final Blueprint.Root<Franchise, ?> SINGLETON = Cotterpin.build(singleton(), Franchise::new);",
+                "    @StaticBuilder",
+                "    static final Blueprint.Root<Franchise, ?> STRATEGY = Cotterpin.build(prototype(), Franchise::new)",
+                "        .strategy(ChildStrategy.IGNORE_NULL_VALUE);", "    @StaticBuilder",
+                "    final Blueprint.Root<Franchise, ?> instance = Cotterpin.build(prototype(), Franchise::new);",
+                "}");
+        final JavaFileObject bad = new SimpleJavaFileObject(URI.create("string:///x/Bad.java"),
+                JavaFileObject.Kind.SOURCE) {
+
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics,
+                Arrays.asList("-proc:only", "-s", tmp.newFolder().getPath(), "-classpath",
+                        classpath(Blueprint.class, Franchise.class, StaticBuilder.class, Validate.class)),
+                null, Collections.singleton(bad));
+        task.setProcessors(Collections.singleton(new StaticBuilderProcessor()));
+
+        assertThat(task.call()).isFalse();
+        assertThat(diagnostics.getDiagnostics()).filteredOn(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .extracting(d -> d.getMessage(Locale.ROOT)).containsExactlyInAnyOrder(
+                        "blueprint must begin with Cotterpin.build(prototype(), ...)",
+                        "cannot translate strategy()", "@StaticBuilder field must be static");
+    }
+
+    private static <T> void assertEquivalent(Supplier<T> blueprint, Supplier<T> builder) {
+        final T expected = blueprint.get();
+        final T actual = builder.get();
+        assertThat(actual).isNotSameAs(expected).usingRecursiveComparison().isEqualTo(expected);
+        assertThat(builder.get()).isNotSameAs(actual).usingRecursiveComparison().isEqualTo(blueprint.get());
+    }
+
+    private static String classpath(Class<?>... types) {
+        return Stream.of(types).map(t -> {
+            try {
+                return Paths.get(t.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+            } catch (URISyntaxException e) {
+                throw new IllegalStateException(e);
+            }
+        }).collect(Collectors.joining(File.pathSeparator));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+/**
+ * Support for asynchronous child values.
+ */
+class Async {
+
+    /**
+     * Default {@link Executor}: virtual threads where the runtime provides them,
+     * else a cached pool of daemon threads.
+     */
+    static final Executor EXECUTOR = load();
+
+    private static Executor load() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(r -> {
+                final Thread result = new Thread(r, "cotterpin-async");
+                result.setDaemon(true);
+                return result;
+            });
+        }
+    }
+
+    /**
+     * Await the result of {@code future}, rethrowing the original cause of any
+     * failure.
+     *
+     * @param <T>    result type
+     * @param future {@link CompletableFuture}
+     * @return T
+     */
+    static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            return ExceptionUtils.rethrow(e.getCause() == null ? e : e.getCause());
+        }
+    }
+
+    private Async() {
+    }
+}
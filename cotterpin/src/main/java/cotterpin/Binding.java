@@ -0,0 +1,209 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+/**
+ * Binding of {@link Map} rows onto the bean setters of a given type. Setters
+ * are discovered once per type and adapted to {@link BiConsumer}s via
+ * {@link LambdaMetafactory} where the setter is visible to this library, else
+ * via an exact-typed {@link MethodHandle}; binding a row therefore invokes no
+ * reflection.
+ *
+ * @param <T> bean type
+ */
+class Binding<T> implements BiConsumer<T, Map<String, ?>> {
+
+    // held softly, as a ClassValue whose value strongly references its type can pin the type's class loader;
+    // a collected Binding is recomputed:
+    private static final ClassValue<SoftReference<Binding<?>>> BINDINGS = new ClassValue<SoftReference<Binding<?>>>() {
+
+        @Override
+        protected SoftReference<Binding<?>> computeValue(Class<?> type) {
+            return new SoftReference<>(new Binding<>(type));
+        }
+    };
+
+    /**
+     * Obtain the {@link Binding} of {@code type}.
+     *
+     * @param <T>  bean type
+     * @param type bean {@link Class}
+     * @return {@link Binding}
+     * @throws IllegalArgumentException if the setters of {@code type} are
+     *                                  inaccessible or ambiguous
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Binding<T> of(Class<T> type) {
+        while (true) {
+            final Binding<?> result = BINDINGS.get(type).get();
+            if (result != null) {
+                return (Binding<T>) result;
+            }
+            BINDINGS.remove(type);
+        }
+    }
+
+    private static final MethodType ACCEPT = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Map<String, BiConsumer<Object, Object>> setters;
+
+    private Binding(Class<T> type) {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final Map<String, Method> methods = new HashMap<>();
+        for (Method m : type.getMethods()) {
+            if (isSetter(m)) {
+                methods.merge(property(m.getName()), m, (m1, m2) -> prefer(type, m1, m2));
+            }
+        }
+        final Map<String, BiConsumer<Object, Object>> result = new HashMap<>();
+        methods.forEach((property, m) -> {
+            try {
+                result.put(property, adapt(lookup, type, m));
+            } catch (IllegalAccessException | NoSuchMethodException e) {
+                throw new IllegalArgumentException("Cannot bind " + m, e);
+            }
+        });
+        this.setters = Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Apply each entry of {@code row} whose key names a property of
+     * {@code bean}; other entries are ignored.
+     *
+     * @param bean target
+     * @param row  property values by name
+     * @throws ClassCastException if a value is not assignable to its property
+     */
+    @Override
+    public void accept(T bean, Map<String, ?> row) {
+        for (Map.Entry<String, ?> e : row.entrySet()) {
+            final BiConsumer<Object, Object> setter = setters.get(e.getKey());
+            if (setter != null) {
+                setter.accept(bean, e.getValue());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> adapt(MethodHandles.Lookup lookup, Class<?> type, Method m)
+            throws IllegalAccessException, NoSuchMethodException {
+        final Class<?> p = m.getParameterTypes()[0];
+        final MethodHandle setter = lookup.findVirtual(type, m.getName(), MethodType.methodType(void.class, p));
+        if (isVisible(type) && isVisible(m.getDeclaringClass()) && isVisible(p)) {
+            final CallSite site;
+            try {
+                site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+                        ACCEPT, setter, MethodType.methodType(void.class, type, ClassUtils.primitiveToWrapper(p)));
+            } catch (LambdaConversionException e) {
+                return invoker(setter);
+            }
+            try {
+                return (BiConsumer<Object, Object>) site.getTarget().invoke();
+            } catch (Throwable t) {
+                return ExceptionUtils.rethrow(t);
+            }
+        }
+        return invoker(setter);
+    }
+
+    private static BiConsumer<Object, Object> invoker(MethodHandle setter) {
+        final MethodHandle exact = setter.asType(ACCEPT);
+        return (bean, value) -> {
+            try {
+                exact.invokeExact(bean, value);
+            } catch (Throwable t) {
+                ExceptionUtils.rethrow(t);
+            }
+        };
+    }
+
+    // generated classes link against types as seen by this library:
+    private static boolean isVisible(Class<?> c) {
+        if (c.isPrimitive()) {
+            return true;
+        }
+        if (c.isArray()) {
+            return isVisible(c.getComponentType());
+        }
+        if (!Modifier.isPublic(c.getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(c.getName(), false, Binding.class.getClassLoader()) == c;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static boolean isSetter(Method m) {
+        return m.getName().length() > 3 && m.getName().startsWith("set") && m.getParameterCount() == 1
+                && m.getReturnType() == void.class && !Modifier.isStatic(m.getModifiers()) && !m.isBridge()
+                && !m.isSynthetic();
+    }
+
+    // resolve overloaded setters in favor of the type of the corresponding getter, else of the most specific:
+    private static Method prefer(Class<?> type, Method m1, Method m2) {
+        final String suffix = m1.getName().substring(3);
+        for (String prefix : new String[] { "get", "is" }) {
+            try {
+                final Class<?> t = type.getMethod(prefix + suffix).getReturnType();
+                if (m2.getParameterTypes()[0] == t) {
+                    return m2;
+                }
+                if (m1.getParameterTypes()[0] == t) {
+                    return m1;
+                }
+            } catch (NoSuchMethodException e) {
+                continue;
+            }
+        }
+        final Class<?> p1 = m1.getParameterTypes()[0];
+        final Class<?> p2 = m2.getParameterTypes()[0];
+        if (p1.isAssignableFrom(p2)) {
+            return m2;
+        }
+        if (p2.isAssignableFrom(p1)) {
+            return m1;
+        }
+        throw new IllegalArgumentException(String.format("Ambiguous setters %s, %s", m1, m2));
+    }
+
+    // as java.beans.Introspector#decapitalize:
+    private static String property(String setter) {
+        final String name = setter.substring(3);
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -15,13 +15,26 @@
  */
 package cotterpin;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
 import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
 import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
+import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.reflect.TypeUtils;
 import org.apache.commons.lang3.reflect.Typed;
 
@@ -33,13 +46,51 @@ import org.apache.commons.lang3.reflect.Typed;
  */
 public interface Blueprint<T, S extends Blueprint<T, S>> extends BlueprintLike<T, S> {
 
+    /**
+     * {@link Supplier} of any number of built instances, implemented by root
+     * blueprints.
+     *
+     * @param <T> built type
+     */
+    public interface Buildable<T> extends Supplier<T> {
+
+        /**
+         * Build {@code count} instances.
+         *
+         * @param count number of instances
+         * @return {@link List}
+         */
+        default List<T> getMany(int count) {
+            Validate.isTrue(count >= 0, "negative count %d", count);
+            final List<T> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(get());
+            }
+            return result;
+        }
+
+        /**
+         * Obtain a {@link Stream} of {@code count} built instances. The
+         * {@link Stream} is {@link java.util.Spliterator#SIZED SIZED} and
+         * splits evenly when parallel, which requires a {@link BuildStrategy}
+         * (e.g. {@link BuildStrategy#prototype()}) safe for concurrent use.
+         *
+         * @param count number of instances
+         * @return {@link Stream}
+         */
+        default Stream<T> stream(long count) {
+            Validate.isTrue(count >= 0, "negative count %d", count);
+            return LongStream.range(0, count).mapToObj(i -> get());
+        }
+    }
+
     /**
      * Root Blueprint type.
      *
      * @param <T> built type
      * @param <S> self type
      */
-    public interface Root<T, S extends Root<T, S>> extends Blueprint<T, S>, Supplier<T> {
+    public interface Root<T, S extends Root<T, S>> extends Blueprint<T, S>, Buildable<T> {
 
         /**
          * Transform this {@link Blueprint}.
@@ -50,6 +101,70 @@ public interface Blueprint<T, S extends Blueprint<T, S>> extends BlueprintLike<T
          * @return {@code SS}
          */
         <TT, SS extends Root<TT, SS>> SS map(Function<? super T, ? extends TT> xform);
+
+        /**
+         * Compile this blueprint, sealing its plan (including that of any
+         * subordinate blueprints) against further steps and compacting it for
+         * repeated execution by a non-singleton {@link BuildStrategy}.
+         *
+         * @return {@code this}, fluently
+         */
+        S compile();
+    }
+
+    /**
+     * Root Blueprint type that builds from an input argument. The input of the
+     * ongoing build is available to the steps of the blueprint and of its
+     * subordinates via {@link #input(Function)}, e.g.
+     * {@code child(blueprint.input(Request::getName))} or
+     * {@code at(blueprint.input(Request::getKey))}, such that a single compiled
+     * plan serves any number of inputs.
+     *
+     * @param <A> input type
+     * @param <T> built type
+     * @param <S> self type
+     */
+    public interface Parameterized<A, T, S extends Parameterized<A, T, S>> extends Blueprint<T, S>, Function<A, T> {
+
+        /**
+         * Obtain a {@link Supplier} of the input of the ongoing build.
+         *
+         * @return {@link Supplier}
+         */
+        default Supplier<A> input() {
+            return input(Function.identity());
+        }
+
+        /**
+         * Obtain a {@link Supplier} of a value derived from the input of the
+         * ongoing build. The returned {@link Supplier} fails with
+         * {@link IllegalStateException} outside of {@link #apply(Object)}.
+         *
+         * @param <X> value type
+         * @param xform {@link Function}
+         * @return {@link Supplier}
+         */
+        <X> Supplier<X> input(Function<? super A, ? extends X> xform);
+
+        /**
+         * Add a step that applies {@code body} to the built object with each of
+         * the values obtained from the input of the ongoing build.
+         *
+         * @param <X>    value type
+         * @param values {@link Function} to obtain values from the input
+         * @param body   {@link BiConsumer}
+         * @return {@code this}, fluently
+         */
+        <X> S each(Function<? super A, ? extends Iterable<? extends X>> values, BiConsumer<? super T, ? super X> body);
+
+        /**
+         * Compile this blueprint, sealing its plan (including that of any
+         * subordinate blueprints) against further steps and compacting it for
+         * repeated execution.
+         *
+         * @return {@code this}, fluently
+         */
+        S compile();
     }
 
     /**
@@ -60,7 +175,7 @@ public interface Blueprint<T, S extends Blueprint<T, S>> extends BlueprintLike<T
      * @param <S> self type
      */
     public interface OfCollection<E, C extends Collection<E>, S extends OfCollection<E, C, S>>
-            extends BlueprintLike<C, S>, Supplier<C> {
+            extends BlueprintLike<C, S>, Buildable<C> {
 
         /**
          * Obtain a blueprint for a directly-specified element.
@@ -125,6 +240,15 @@ public interface Blueprint<T, S extends Blueprint<T, S>> extends BlueprintLike<T
          * @return {@code SS}
          */
         <T, SS extends Root<T, SS>> SS map(Function<? super C, ? extends T> xform);
+
+        /**
+         * Compile this blueprint, sealing its plan (including that of any
+         * subordinate blueprints) against further steps and compacting it for
+         * repeated execution by a non-singleton {@link BuildStrategy}.
+         *
+         * @return {@code this}, fluently
+         */
+        S compile();
     }
 
     /**
@@ -155,7 +279,7 @@ public interface Blueprint<T, S extends Blueprint<T, S>> extends BlueprintLike<T
      * @param <S> self type
      */
     public interface OfMap<K, V, M extends Map<K, V>, S extends OfMap<K, V, M, S>>
-            extends BlueprintLike<M, S>, Supplier<M> {
+            extends BlueprintLike<M, S>, Buildable<M> {
 
         /**
          * Obtain a blueprint for a {@link Map} entry (via its value).
@@ -220,6 +344,15 @@ public interface Blueprint<T, S extends Blueprint<T, S>> extends BlueprintLike<T
          * @return {@code SS}
          */
         <T, SS extends Root<T, SS>> SS map(Function<? super M, ? extends T> xform);
+
+        /**
+         * Compile this blueprint, sealing its plan (including that of any
+         * subordinate blueprints) against further steps and compacting it for
+         * repeated execution by a non-singleton {@link BuildStrategy}.
+         *
+         * @return {@code this}, fluently
+         */
+        S compile();
     }
 
     /**
@@ -434,6 +567,60 @@ public interface Blueprint<T, S extends Blueprint<T, S>> extends BlueprintLike<T
         }
     }
 
+    /**
+     * Fluent step for an {@code int} child value, applied without boxing.
+     *
+     * @param <U> parent type
+     * @param <P> parent blueprint type
+     */
+    @FunctionalInterface
+    public interface IntChild<U, P extends Blueprint<U, P>> {
+
+        /**
+         * Apply the supplied value to the parent using the specified {@code mutator}.
+         *
+         * @param mutator
+         * @return parent blueprint, fluently
+         */
+        P onto(ObjIntConsumer<? super U> mutator);
+    }
+
+    /**
+     * Fluent step for a {@code long} child value, applied without boxing.
+     *
+     * @param <U> parent type
+     * @param <P> parent blueprint type
+     */
+    @FunctionalInterface
+    public interface LongChild<U, P extends Blueprint<U, P>> {
+
+        /**
+         * Apply the supplied value to the parent using the specified {@code mutator}.
+         *
+         * @param mutator
+         * @return parent blueprint, fluently
+         */
+        P onto(ObjLongConsumer<? super U> mutator);
+    }
+
+    /**
+     * Fluent step for a {@code double} child value, applied without boxing.
+     *
+     * @param <U> parent type
+     * @param <P> parent blueprint type
+     */
+    @FunctionalInterface
+    public interface DoubleChild<U, P extends Blueprint<U, P>> {
+
+        /**
+         * Apply the supplied value to the parent using the specified {@code mutator}.
+         *
+         * @param mutator
+         * @return parent blueprint, fluently
+         */
+        P onto(ObjDoubleConsumer<? super U> mutator);
+    }
+
     /**
      * Blueprint for a child "component" which may be an object that already exists
      * on the parent.
@@ -489,6 +676,107 @@ public interface Blueprint<T, S extends Blueprint<T, S>> extends BlueprintLike<T
         return child(() -> c);
     }
 
+    /**
+     * Obtain a blueprint for a child value supplied asynchronously on the default
+     * {@link Executor}, which uses virtual threads where the runtime provides
+     * them.
+     *
+     * @param <X> value type
+     * @param <C> {@link Child} blueprint type
+     * @param c   child {@link Supplier}
+     * @return C
+     * @see #childAsync(Supplier, Executor)
+     */
+    default <X, C extends Child<X, T, S, C>> C childAsync(Supplier<X> c) {
+        return childAsync(c, Async.EXECUTOR);
+    }
+
+    /**
+     * Obtain a blueprint for a child value supplied asynchronously on
+     * {@code executor}, e.g. where {@code c} performs blocking I/O. Under a
+     * prototype-based {@link BuildStrategy}, each build of this blueprint first
+     * launches all of its asynchronous child values (each built along with its
+     * own subordinate nodes), then awaits each as it is attached; otherwise the
+     * value is obtained synchronously. Asynchronous values see the state of the
+     * build that launched them, e.g. {@link Parameterized#input()}, and those
+     * not yet started are cancelled if a step of the build fails.
+     *
+     * @param <X>      value type
+     * @param <C>      {@link Child} blueprint type
+     * @param c        child {@link Supplier}
+     * @param executor {@link Executor}
+     * @return C
+     */
+    <X, C extends Child<X, T, S, C>> C childAsync(Supplier<X> c, Executor executor);
+
+    /**
+     * Obtain a blueprint for a child value completed by {@code c}, which is
+     * awaited as the value is attached.
+     *
+     * @param <X> value type
+     * @param <C> {@link Child} blueprint type
+     * @param c   child {@link CompletionStage}
+     * @return C
+     */
+    <X, C extends Child<X, T, S, C>> C child(CompletionStage<X> c);
+
+    /**
+     * Obtain a step for a supplied {@code int} child value. Unless a non-default
+     * {@link ChildStrategy} is in effect, the value is never boxed.
+     *
+     * @param c child {@link IntSupplier}
+     * @return {@link IntChild}
+     */
+    IntChild<T, S> childInt(IntSupplier c);
+
+    /**
+     * Obtain a step for a directly-specified {@code int} child value.
+     *
+     * @param c child value
+     * @return {@link IntChild}
+     */
+    default IntChild<T, S> childInt(int c) {
+        return childInt(() -> c);
+    }
+
+    /**
+     * Obtain a step for a supplied {@code long} child value. Unless a non-default
+     * {@link ChildStrategy} is in effect, the value is never boxed.
+     *
+     * @param c child {@link LongSupplier}
+     * @return {@link LongChild}
+     */
+    LongChild<T, S> childLong(LongSupplier c);
+
+    /**
+     * Obtain a step for a directly-specified {@code long} child value.
+     *
+     * @param c child value
+     * @return {@link LongChild}
+     */
+    default LongChild<T, S> childLong(long c) {
+        return childLong(() -> c);
+    }
+
+    /**
+     * Obtain a step for a supplied {@code double} child value. Unless a non-default
+     * {@link ChildStrategy} is in effect, the value is never boxed.
+     *
+     * @param c child {@link DoubleSupplier}
+     * @return {@link DoubleChild}
+     */
+    DoubleChild<T, S> childDouble(DoubleSupplier c);
+
+    /**
+     * Obtain a step for a directly-specified {@code double} child value.
+     *
+     * @param c child value
+     * @return {@link DoubleChild}
+     */
+    default DoubleChild<T, S> childDouble(double c) {
+        return childDouble(() -> c);
+    }
+
     /**
      * Shorthand for {@link #child(Supplier)}.
      *
@@ -0,0 +1,222 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Super-interface for blueprint-like types.
+ * 
+ * @param <T> built type
+ * @param <S> self type
+ */
+public interface BlueprintLike<T, S extends BlueprintLike<T, S>> {
+
+    /**
+     * Step in fluent interface.
+     *
+     * @param <E> value type
+     * @param <B> originating {@link BlueprintLike}
+     */
+    public interface ForEach<E, B extends BlueprintLike<?, B>> {
+
+        /**
+         * Apply to {@code body} each value and the originating blueprint.
+         * 
+         * @param body
+         * @return B
+         */
+        B apply(BiConsumer<E, B> body);
+    }
+
+    /**
+     * Step in fluent interface: compact loops whose elements may be obtained and
+     * attached concurrently.
+     *
+     * @param <T> built type
+     * @param <B> originating {@link BlueprintLike}
+     * @see BlueprintLike#parallel()
+     */
+    public interface ParallelLoop<T, B extends BlueprintLike<T, B>> {
+
+        /**
+         * Parallel {@link BlueprintLike#attachTimes(int, IntFunction, BiConsumer)}.
+         *
+         * @param <V>     element type
+         * @param times
+         * @param element {@link IntFunction} of the iteration index
+         * @param attach  thread-safe {@link BiConsumer} to attach each element
+         * @return B
+         */
+        <V> B attachTimes(int times, IntFunction<? extends V> element, BiConsumer<? super T, ? super V> attach);
+
+        /**
+         * Parallel {@link BlueprintLike#attachEach(Iterable, Function, BiConsumer)}.
+         *
+         * @param <X>     value type
+         * @param <V>     element type
+         * @param values
+         * @param element {@link Function} of each value
+         * @param attach  thread-safe {@link BiConsumer} to attach each element
+         * @return B
+         */
+        <X, V> B attachEach(Iterable<? extends X> values, Function<? super X, ? extends V> element,
+                BiConsumer<? super T, ? super V> attach);
+    }
+
+    /**
+     * Repeat the specified loop body {@code times} times. The loop is unrolled as
+     * the blueprint is defined.
+     * 
+     * @param times
+     * @param body
+     * @return {@code this}, fluently
+     * @see #attachTimes(int, IntFunction, BiConsumer)
+     */
+    S times(int times, ObjIntConsumer<S> body);
+
+    /**
+     * Record a compact loop which, for each build, attaches {@code times} values
+     * obtained from {@code element}, e.g. a {@link Blueprint.Parameterized}
+     * blueprint, in order on the building thread. The size of the recorded plan
+     * is independent of {@code times}.
+     * <p>
+     * Unlike {@link #times(int, ObjIntConsumer)}, this records no fluent loop
+     * body: it adds a single step calling {@code attach} with each element, so
+     * the attachment is code of the caller's rather than {@code onto},
+     * {@code addTo}, {@code into} or an {@code ifNull} component strategy, and
+     * only the current {@link ChildStrategy} and the plan of a
+     * {@link BlueprintLike} {@code element} are applied to it.
+     * 
+     * @param <V>     element type
+     * @param times
+     * @param element {@link IntFunction} of the iteration index
+     * @param attach  {@link BiConsumer} to attach each element
+     * @return {@code this}, fluently
+     */
+    <V> S attachTimes(int times, IntFunction<? extends V> element, BiConsumer<? super T, ? super V> attach);
+
+    /**
+     * Begin a compact loop which, under
+     * {@link BuildStrategy#parallel(java.util.concurrent.ForkJoinPool, int)},
+     * obtains and attaches its elements across the pool in no particular order.
+     * The caller thereby asserts that its {@code element} function and
+     * {@code attach} consumer are thread-safe, e.g. that the latter populates a
+     * concurrent collection. Under any other {@link BuildStrategy} the loop runs
+     * as if begun from this blueprint. The subordinate values of structural
+     * {@link #times(int, ObjIntConsumer) times} and {@link #each(Iterable) each}
+     * loops need no such opt-in: a parallel strategy builds them as it does any
+     * other subordinate value.
+     *
+     * @return {@link ParallelLoop}
+     */
+    ParallelLoop<T, S> parallel();
+
+    /**
+     * Shorthand for {@link #times(int, ObjIntConsumer)}.
+     * 
+     * @param times
+     * @param body
+     * @return {@code this}, fluently
+     */
+    default S x(int times, ObjIntConsumer<S> body) {
+        return times(times, body);
+    }
+
+    /**
+     * Begin the process of iterating over a number of input values. The loop is
+     * unrolled as the blueprint is defined.
+     * 
+     * @param <X>    value type
+     * @param values
+     * @return {@link ForEach}
+     * @see #attachEach(Iterable, Function, BiConsumer)
+     */
+    <X> ForEach<X, S> each(Iterable<X> values);
+
+    /**
+     * Record a compact loop which, for each build, iterates {@code values} anew
+     * and attaches the value obtained from {@code element}, e.g. a
+     * {@link Blueprint.Parameterized} blueprint, for each, in order on the
+     * building thread. The size of the
+     * recorded plan is independent of the number of values.
+     * <p>
+     * Unlike {@link #each(Iterable)}, this records no fluent loop body; see
+     * {@link #attachTimes(int, IntFunction, BiConsumer)}.
+     * 
+     * @param <X>     value type
+     * @param <V>     element type
+     * @param values
+     * @param element {@link Function} of each value
+     * @param attach  {@link BiConsumer} to attach each element
+     * @return {@code this}, fluently
+     */
+    <X, V> S attachEach(Iterable<? extends X> values, Function<? super X, ? extends V> element,
+            BiConsumer<? super T, ? super V> attach);
+
+    /**
+     * Begin the process of iterating over a number of input values.
+     * 
+     * @param <X>    value type
+     * @param values
+     * @return {@link ForEach}
+     */
+    @SuppressWarnings("unchecked")
+    default <X> ForEach<X, S> each(X... values) {
+        return each(Arrays.asList(values));
+    }
+
+    /**
+     * Add a step to the blueprint plan.
+     * 
+     * @param mutation which will be applied
+     * @return {@code this}, fluently
+     */
+    S then(Consumer<? super T> mutation);
+
+    /**
+     * In conjunction with inherited strategies (where applicable), apply the
+     * specified {@link ChildStrategy} set from this point onward until and unless
+     * this method is called again.
+     * 
+     * @param strategies
+     * @return {@code this}, fluently
+     */
+    S strategy(ChildStrategy... strategies);
+
+    /**
+     * Get the {@link PlanNode} recorded for this blueprint, which is updated as
+     * the blueprint is defined.
+     * 
+     * @return {@link PlanNode}
+     */
+    PlanNode plan();
+
+    /**
+     * Describe the plan recorded for this blueprint.
+     * 
+     * @return {@link String}
+     * @see PlanNode#explain()
+     */
+    default String explain() {
+        return plan().explain();
+    }
+}
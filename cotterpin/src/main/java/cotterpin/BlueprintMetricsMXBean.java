@@ -0,0 +1,88 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+/**
+ * JMX view of the builds of a named blueprint.
+ *
+ * @see BuildStrategy#metered(String, BuildStrategy)
+ */
+public interface BlueprintMetricsMXBean {
+
+    /**
+     * Get the blueprint name.
+     *
+     * @return {@link String}
+     */
+    String getName();
+
+    /**
+     * Learn whether builds are being measured.
+     *
+     * @return boolean
+     */
+    boolean isEnabled();
+
+    /**
+     * Set whether builds are to be measured.
+     *
+     * @param enabled
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Get the number of completed builds.
+     *
+     * @return long
+     */
+    long getBuilds();
+
+    /**
+     * Get the number of failed builds.
+     *
+     * @return long
+     */
+    long getFailures();
+
+    /**
+     * Get the total time spent in completed builds.
+     *
+     * @return nanoseconds
+     */
+    long getTotalNanos();
+
+    /**
+     * Get the mean time of a completed build.
+     *
+     * @return nanoseconds
+     */
+    double getMeanNanos();
+
+    /**
+     * Get the build latency histogram, where element {@code i} counts the
+     * completed builds that took at least {@code 2^i} (and less than
+     * {@code 2^(i+1)}) nanoseconds; element {@code 0} also counts builds
+     * measured at zero.
+     *
+     * @return {@code long[]}
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * Reset all counters.
+     */
+    void reset();
+}
@@ -0,0 +1,113 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread state of the ongoing build(s), e.g. the input of a
+ * {@link Blueprint.Parameterized} or the values launched for asynchronous
+ * children. Each binding is an immutable frame linked to the enclosing
+ * context, so that a context can be captured as a single reference and
+ * carried to the threads on which parts of the same build run.
+ */
+final class BuildContext {
+    private static final ThreadLocal<BuildContext> CURRENT = new ThreadLocal<>();
+
+    private final Object key;
+    private final Object value;
+    private final BuildContext next;
+
+    private BuildContext(Object key, Object value, BuildContext next) {
+        this.key = key;
+        this.value = value;
+        this.next = next;
+    }
+
+    /**
+     * Get the value bound to {@code key} in the current context.
+     *
+     * @param <V>       value type
+     * @param key       identity
+     * @param otherwise value if {@code key} is unbound
+     * @return V
+     */
+    @SuppressWarnings("unchecked")
+    static <V> V get(Object key, V otherwise) {
+        for (BuildContext c = CURRENT.get(); c != null; c = c.next) {
+            if (c.key == key) {
+                return (V) c.value;
+            }
+        }
+        return otherwise;
+    }
+
+    /**
+     * Bind {@code value} to {@code key} until the returned context is
+     * {@link #restore(BuildContext) restored}.
+     *
+     * @param key   identity
+     * @param value to bind
+     * @return enclosing {@link BuildContext}
+     */
+    static BuildContext bind(Object key, Object value) {
+        final BuildContext enclosing = CURRENT.get();
+        CURRENT.set(new BuildContext(key, value, enclosing));
+        return enclosing;
+    }
+
+    /**
+     * Capture the current context.
+     *
+     * @return {@link BuildContext}, {@code null} outside of any build
+     */
+    static BuildContext capture() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Make {@code context} current.
+     *
+     * @param context to restore
+     */
+    static void restore(BuildContext context) {
+        // retain the thread-local entry rather than reallocating it per build:
+        CURRENT.set(context);
+    }
+
+    /**
+     * Run {@code value} in the current context, whichever thread calls it.
+     *
+     * @param <V>   value type
+     * @param value {@link Supplier}
+     * @return {@link Supplier}
+     */
+    static <V> Supplier<V> propagate(Supplier<V> value) {
+        final BuildContext context = CURRENT.get();
+        if (context == null) {
+            return value;
+        }
+        return () -> {
+            final BuildContext enclosing = CURRENT.get();
+            CURRENT.set(context);
+            try {
+                return value.get();
+            } finally {
+                CURRENT.set(enclosing);
+            }
+        };
+    }
+}
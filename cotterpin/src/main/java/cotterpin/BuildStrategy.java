@@ -0,0 +1,411 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Build strategy.
+ */
+public interface BuildStrategy<T> extends Supplier<T> {
+
+    /**
+     * {@link BuildStrategy} that recycles built instances.
+     *
+     * @param <T> built type
+     */
+    public interface Pooled<T> extends BuildStrategy<T> {
+
+        /**
+         * Handle to a leased instance; closing it resets the instance and returns
+         * it, along with the pooled subordinate instances built for it, to the
+         * pool.
+         *
+         * @param <T> built type
+         */
+        public interface Lease<T> extends Supplier<T>, AutoCloseable {
+
+            /**
+             * Release the leased instance. The instance must not be used
+             * afterward.
+             */
+            @Override
+            void close();
+        }
+
+        /**
+         * Lease a built instance.
+         *
+         * @return {@link Lease}
+         */
+        Lease<T> lease();
+
+        /**
+         * Register {@code reset} to be applied to each pooled subordinate
+         * instance of {@code type} built for a lease when the lease is closed,
+         * before the instance is returned to its pool. Resets are applied in
+         * registration order and must be registered before the blueprint is
+         * compiled or used.
+         *
+         * @param <U>   subordinate type
+         * @param type  {@link Class} of subordinate instances
+         * @param reset {@link Consumer}
+         * @return {@code this}, fluently
+         */
+        <U> Pooled<T> reset(Class<U> type, Consumer<? super U> reset);
+    }
+
+    /**
+     * {@link BuildStrategy} that retains one built instance per thread.
+     *
+     * @param <T> built type
+     */
+    public interface PerThread<T> extends BuildStrategy<T> {
+
+        /**
+         * Discard the instance built for the current thread, if any, such that
+         * the next {@code get()} on this thread will build anew. Threads
+         * returned to a pool should clear their instances to avoid leaks.
+         */
+        void clear();
+    }
+
+    /**
+     * {@link BuildStrategy} that retains built instances for a limited time.
+     *
+     * @param <T> built type
+     */
+    public interface Cached<T> extends BuildStrategy<T> {
+
+        /**
+         * Discard all cached instances.
+         */
+        void invalidate();
+
+        /**
+         * Get the number of builds satisfied from the cache.
+         *
+         * @return long
+         */
+        long hits();
+
+        /**
+         * Get the number of builds that executed the recorded plan.
+         *
+         * @return long
+         */
+        long misses();
+
+        /**
+         * Get the number of cached instances discarded due to expiry or to the
+         * entry limit.
+         *
+         * @return long
+         */
+        long evictions();
+    }
+
+    /**
+     * {@link BuildStrategy} that publishes build metrics.
+     *
+     * @param <T> built type
+     */
+    public interface Metered<T> extends BuildStrategy<T>, AutoCloseable {
+
+        /**
+         * Get the metrics of this {@link BuildStrategy}.
+         *
+         * @return {@link BlueprintMetricsMXBean}
+         */
+        BlueprintMetricsMXBean metrics();
+
+        /**
+         * Unregister the metrics of this {@link BuildStrategy}. Builds remain
+         * possible.
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * {@link Metered} {@link Pooled} strategy, whose leases are measured as
+     * builds.
+     *
+     * @param <T> built type
+     */
+    public interface MeteredPooled<T> extends Metered<T>, Pooled<T> {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        <U> MeteredPooled<T> reset(Class<U> type, Consumer<? super U> reset);
+    }
+
+    /**
+     * Obtain a singleton {@link BuildStrategy}.
+     * @param <T>
+     * @return {@link BuildStrategy}
+     */
+    public static <T> BuildStrategy<T> singleton() {
+        class SingletonStrategy<TT> implements BuildStrategy<TT> {
+            TT target;
+            
+            @Override
+            public void initialize(Supplier<TT> target) {
+                this.target = target.get();
+            }
+            
+            @Override
+            public void apply(Consumer<? super TT> mutation) {
+                mutation.accept(target);
+            }
+            
+            @Override
+            public TT get() {
+                return target;
+            }
+
+            @Override
+            public <U> BuildStrategy<U> child() {
+                return new SingletonStrategy<>();
+            }
+        }
+        return new SingletonStrategy<>();
+    }
+
+    /**
+     * Obtain a prototype {@link BuildStrategy}. Prototype blueprints, including
+     * their {@link Blueprint.Mutator} components, hold no per-build state: once
+     * definition is complete and the blueprint has been safely published (e.g.
+     * via a {@code final} field or an executor handoff), {@code get()} may be
+     * invoked concurrently from any number of threads, provided the functions
+     * supplied to the blueprint are themselves thread-safe. Use
+     * {@link Blueprint.Root#compile()} to seal the plan against further
+     * modification.
+     * @param <T>
+     * @return {@link BuildStrategy}
+     */
+    public static <T> BuildStrategy<T> prototype() {
+        return new PrototypeStrategy<>();
+    }
+
+    /**
+     * Obtain a pooled {@link BuildStrategy}. This is a prototype strategy which,
+     * rather than constructing a new target for each build, takes a previously
+     * released instance from a bounded, lock-free pool when one is available and
+     * reapplies the recorded mutations to it. Instances obtained via
+     * {@link Pooled#lease()} are returned to the pool by closing the
+     * {@link Pooled.Lease}, after {@code reset} is applied to the root.
+     * Subordinate blueprints which mutate the instances they create (e.g.
+     * {@code child(Character::new).child(...).onto(...)}) use pooled child
+     * strategies, and the instances they build for a lease, including on other
+     * threads for the same build (e.g. under a parallel strategy), are recycled
+     * with it after any resets registered via
+     * {@link Pooled#reset(Class, Consumer)} for their types; since a recycled
+     * child is mutated again as it was left, these and {@code reset} must
+     * clear whatever state the plan accumulates (e.g. via {@code addTo})
+     * throughout the graph. Subordinate values, i.e. children that record no
+     * mutations (e.g. {@code child(() -> nextId())}) or are obtained
+     * asynchronously, are obtained anew for every build and never pooled.
+     * Instances built by other blueprints during a lease, even pooled ones, and
+     * instances obtained via {@code get()} are never returned.
+     * @param <T>
+     * @param capacity of each pool
+     * @param reset applied to a root instance upon release
+     * @return {@link Pooled}
+     */
+    public static <T> Pooled<T> pooled(int capacity, Consumer<? super T> reset) {
+        return new PooledStrategy<>(capacity, reset);
+    }
+
+    /**
+     * Obtain a per-thread {@link BuildStrategy}. The recorded plan is executed
+     * once per thread, upon that thread's first {@code get()}; subsequent calls
+     * from the same thread return the same instance. Subordinate blueprints
+     * use prototype child strategies, so each thread's graph is wholly its own.
+     * This suits graphs that are not thread-safe but are expensive to rebuild
+     * for each use. Use {@link PerThread#clear()} to release the current
+     * thread's instance.
+     * @param <T>
+     * @return {@link PerThread}
+     */
+    public static <T> PerThread<T> perThread() {
+        return new PerThreadStrategy<>();
+    }
+
+    /**
+     * Obtain a cached {@link BuildStrategy}. Equivalent to
+     * {@code cached(ttl, 1, () -> null)}.
+     * @param <T>
+     * @param ttl time to retain each built instance
+     * @return {@link Cached}
+     * @see #cached(Duration, int, Supplier)
+     */
+    public static <T> Cached<T> cached(Duration ttl) {
+        return cached(ttl, 1, () -> null);
+    }
+
+    /**
+     * Obtain a cached {@link BuildStrategy}. This is a prototype strategy whose
+     * built instances are retained and returned by {@code get()} until
+     * {@code ttl} has elapsed since each was built, keyed by the value of
+     * {@code key} at the time of the call (e.g. a contextual locale or tenant).
+     * At most {@code maxEntries} instances are retained, the least recently
+     * used being evicted first. Subordinate blueprints use prototype child
+     * strategies. {@code get()} may be invoked concurrently; a cached instance
+     * is shared by all callers, so should be treated as immutable.
+     * @param <T>
+     * @param ttl time to retain each built instance
+     * @param maxEntries maximum number of instances retained
+     * @param key {@link Supplier} of the cache key for the current build;
+     *            {@code null} is a valid key
+     * @return {@link Cached}
+     */
+    public static <T> Cached<T> cached(Duration ttl, int maxEntries, Supplier<?> key) {
+        return new CachedStrategy<>(ttl, maxEntries, key);
+    }
+
+    /**
+     * Obtain a template {@link BuildStrategy}. This is a prototype strategy
+     * which executes its recorded plan only once, upon the first
+     * {@code get()}, retaining the result as a template; each {@code get()}
+     * returns a copy of the template made by {@code copier}, which must
+     * return a new instance independent of the template to whatever depth the
+     * caller requires. Cotterpin neither knows nor checks that depth: unless
+     * {@code copier} copies the graph deeply, nested objects are shared between
+     * the template and every copy, so the correctness of the copy is the
+     * caller's responsibility. Where a graph is large and its type offers an
+     * efficient copy (e.g. a copy constructor), copying can be cheaper than
+     * replaying the plan. Subordinate blueprints use prototype child strategies.
+     * {@code get()} may be invoked concurrently, provided {@code copier} does
+     * not modify the template.
+     * @param <T>
+     * @param copier {@link UnaryOperator} to copy the template
+     * @return {@link BuildStrategy}
+     */
+    public static <T> BuildStrategy<T> template(UnaryOperator<T> copier) {
+        return new TemplateStrategy<>(copier);
+    }
+
+    /**
+     * Obtain a parallel {@link BuildStrategy} using the common
+     * {@link ForkJoinPool}. Equivalent to
+     * {@code parallel(ForkJoinPool.commonPool(), 1)}.
+     * @param <T>
+     * @return {@link BuildStrategy}
+     * @see #parallel(ForkJoinPool, int)
+     */
+    public static <T> BuildStrategy<T> parallel() {
+        return parallel(ForkJoinPool.commonPool(), 1);
+    }
+
+    /**
+     * Obtain a parallel {@link BuildStrategy}. This is a prototype strategy
+     * which, at each node of the graph, first builds the values of the
+     * subordinate nodes attached to it (e.g. via {@code onto}, {@code addTo},
+     * {@code into} or {@code add}) as tasks on {@code pool}, then applies its
+     * recorded steps in declaration order on the building thread, so that the
+     * result is deterministic. Each task builds up to {@code granularity}
+     * values; a node with no more than {@code granularity} such values is
+     * built sequentially. Subordinate blueprints use parallel child
+     * strategies. The suppliers of subordinate values must be independent of
+     * one another and thread-safe; they see the state of the ongoing build,
+     * e.g. {@link Blueprint.Parameterized#input()}, and any exception they throw
+     * propagates to the caller as thrown. {@link Blueprint.Mutator} components
+     * are mutated sequentially. Compact loops begun via
+     * {@link BlueprintLike#parallel()} are split across {@code pool} by index
+     * range or {@link java.util.Spliterator}, attaching their elements in no
+     * particular order; other compact loops attach theirs in order on the
+     * building thread.
+     * @param <T>
+     * @param pool {@link ForkJoinPool} on which to build subordinate values
+     * @param granularity maximum number of values built by a single task
+     * @return {@link BuildStrategy}
+     */
+    public static <T> BuildStrategy<T> parallel(ForkJoinPool pool, int granularity) {
+        return new ParallelStrategy<>(pool, granularity);
+    }
+
+    /**
+     * Obtain a metered {@link BuildStrategy}, which delegates to
+     * {@code delegate} and measures the count, failures and latency of each
+     * {@code get()}. The metrics are registered with the platform MBean server
+     * as {@link BlueprintMetricsMXBean}
+     * {@code cotterpin:type=Blueprint,name="<name>"} until the returned
+     * {@link Metered} is closed. Measurement may be switched off at runtime via
+     * {@link BlueprintMetricsMXBean#setEnabled(boolean)}, leaving the cost of
+     * a single volatile read per build. Subordinate blueprints are not
+     * separately measured. Metering changes nothing about how blueprints
+     * build: e.g. asynchronous children, parallel loops and fused attachments
+     * behave as under {@code delegate} itself.
+     * @param <T>
+     * @param name unique name of the blueprint
+     * @param delegate {@link BuildStrategy} to measure
+     * @return {@link Metered}
+     * @throws IllegalStateException if metrics named {@code name} are already
+     *         registered
+     */
+    public static <T> Metered<T> metered(String name, BuildStrategy<T> delegate) {
+        return new MeteredStrategy<>(name, delegate);
+    }
+
+    /**
+     * Obtain a metered {@link Pooled} strategy, as
+     * {@link #metered(String, BuildStrategy)}, which also measures each
+     * {@link Pooled#lease()}.
+     * @param <T>
+     * @param name unique name of the blueprint
+     * @param delegate {@link Pooled} strategy to measure
+     * @return {@link MeteredPooled}
+     * @throws IllegalStateException if metrics named {@code name} are already
+     *         registered
+     */
+    public static <T> MeteredPooled<T> metered(String name, Pooled<T> delegate) {
+        return new MeteredStrategy.OfPooled<>(name, delegate);
+    }
+
+    /**
+     * Initialize the build strategy.
+     * @param target {@link Supplier}
+     */
+    void initialize(Supplier<T> target);
+
+    /**
+     * Apply the specified mutation.
+     * @param mutation
+     */
+    void apply(Consumer<? super T> mutation);
+
+    /**
+     * Obtain a child {@link BuildStrategy}.
+     * @param <U>
+     * @return {@link BuildStrategy}
+     */
+    <U> BuildStrategy<U> child();
+
+    /**
+     * Signal that no further mutations will be applied, allowing the strategy to
+     * compact its recorded plan. Implementations should propagate to the child
+     * strategies they have created. Default {@code noop}.
+     */
+    default void freeze() {
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Step attaching the values of consecutive sibling nodes to a shared parent
+ * component with a single bulk operation. Values, keys and the component are
+ * obtained in the same order as by the unfused steps; however, the values are
+ * attached together once all have been built, so that the supplier of a value
+ * does not observe the attachment of its predecessors. Fused attachments are
+ * instrumented as a single step of their parent, e.g. one Java Flight Recorder
+ * event, so that fusion never depends upon whether a recording is underway. A
+ * lone attachment, or any attachment while a {@link BuildProfiler} samples
+ * its steps, is applied by its own, unfused step.
+ *
+ * @param <P> parent type
+ * @param <C> component type
+ */
+abstract class BulkStep<P, C> implements Consumer<P> {
+    private static final Supplier<?>[] EMPTY = new Supplier<?>[0];
+    private static final Consumer<?>[] EMPTY_STEPS = new Consumer<?>[0];
+
+    /**
+     * {@link Collection#addAll(Collection)} step.
+     *
+     * @param <P> parent type
+     * @param <C> component type
+     */
+    static class AddAll<P, C extends Collection<?>> extends BulkStep<P, C> {
+
+        AddAll(Resolution<P, C> resolution, Events events, String path) {
+            super(resolution, events, path, "addAll");
+        }
+
+        /**
+         * Add a value.
+         *
+         * @param step  unfused equivalent
+         * @param value {@link Supplier}
+         */
+        void add(Consumer<P> step, Supplier<?> value) {
+            append(step, value);
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        @Override
+        void fuse(P p) {
+            final int n = size;
+            final Object[] v = new Object[n];
+            v[0] = values[0].get();
+            final Collection c = resolution.apply(p);
+            for (int i = 1; i < n; i++) {
+                v[i] = values[i].get();
+            }
+            c.addAll(Arrays.asList(v));
+        }
+    }
+
+    /**
+     * {@link Map#putAll(Map)} step.
+     *
+     * @param <P> parent type
+     * @param <M> component type
+     */
+    static class PutAll<P, M extends Map<?, ?>> extends BulkStep<P, M> {
+        private Supplier<?>[] keys = EMPTY;
+
+        PutAll(Resolution<P, M> resolution, Events events, String path) {
+            super(resolution, events, path, "putAll");
+        }
+
+        /**
+         * Add an entry.
+         *
+         * @param step  unfused equivalent
+         * @param key   {@link Supplier}
+         * @param value {@link Supplier}
+         */
+        void add(Consumer<P> step, Supplier<?> key, Supplier<?> value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(8, size << 1));
+            }
+            keys[size] = key;
+            append(step, value);
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        @Override
+        void fuse(P p) {
+            final int n = size;
+            final Object[] k = new Object[n];
+            final Object[] v = new Object[n];
+            v[0] = values[0].get();
+            final Map m = resolution.apply(p);
+            k[0] = keys[0].get();
+            for (int i = 1; i < n; i++) {
+                v[i] = values[i].get();
+                k[i] = keys[i].get();
+            }
+            m.putAll(new ArrayMap(k, v));
+        }
+    }
+
+    /**
+     * Transient, read-only {@link Map} view of parallel key and value arrays.
+     */
+    private static class ArrayMap extends AbstractMap<Object, Object> {
+        final Object[] keys;
+        final Object[] values;
+
+        ArrayMap(Object[] keys, Object[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Set<Map.Entry<Object, Object>> entrySet() {
+            return new AbstractSet<Map.Entry<Object, Object>>() {
+
+                @Override
+                public int size() {
+                    return values.length;
+                }
+
+                @Override
+                public Iterator<Map.Entry<Object, Object>> iterator() {
+                    return new Iterator<Map.Entry<Object, Object>>() {
+                        int i;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < values.length;
+                        }
+
+                        @Override
+                        public Map.Entry<Object, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            final int e = i++;
+                            return new SimpleImmutableEntry<>(keys[e], values[e]);
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    final Resolution<P, C> resolution;
+    final Events events;
+    private final Consumer<P> fused;
+    Consumer<P>[] steps = empty();
+    Supplier<?>[] values = EMPTY;
+    int size;
+
+    BulkStep(Resolution<P, C> resolution, Events events, String path, String kind) {
+        this.resolution = resolution;
+        this.events = events;
+        this.fused = events.step(path, kind, this::fuse);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <P> Consumer<P>[] empty() {
+        return (Consumer<P>[]) EMPTY_STEPS;
+    }
+
+    void append(Consumer<P> step, Supplier<?> value) {
+        if (size == values.length) {
+            final int capacity = Math.max(8, size << 1);
+            steps = Arrays.copyOf(steps, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        steps[size] = step;
+        values[size++] = value;
+    }
+
+    /**
+     * Attach all values to the component of {@code p} in bulk.
+     *
+     * @param p parent
+     */
+    abstract void fuse(P p);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void accept(P p) {
+        final int n = size;
+        if (n > 1 && !events.instrumented()) {
+            fused.accept(p);
+            return;
+        }
+        final Consumer<P>[] s = steps;
+        for (int i = 0; i < n; i++) {
+            s[i].accept(p);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Cached {@link BuildStrategy}: a prototype whose built instances are retained,
+ * per key, until they expire or are evicted in least-recently-used order.
+ * Builds take place outside the cache lock, so concurrent misses on the same
+ * key may build more than once; the last result built wins.
+ *
+ * @param <T> built type
+ */
+class CachedStrategy<T> extends PrototypeStrategy<T> implements BuildStrategy.Cached<T> {
+
+    private static class Retained<T> {
+        final T value;
+        final long expires;
+
+        Retained(T value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+
+    private static final Object UNKEYED = new Object();
+
+    private final long ttl;
+    private final Supplier<?> key;
+    private final LongSupplier clock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LinkedHashMap<Object, Retained<T>> entries;
+
+    CachedStrategy(Duration ttl, int maxEntries, Supplier<?> key) {
+        this(ttl, maxEntries, key, System::nanoTime);
+    }
+
+    CachedStrategy(Duration ttl, int maxEntries, Supplier<?> key, LongSupplier clock) {
+        Validate.isTrue(!Objects.requireNonNull(ttl, "ttl").isNegative() && !ttl.isZero(), "ttl must be positive");
+        Validate.isTrue(maxEntries > 0, "maxEntries must be positive");
+        this.ttl = ttl.toNanos();
+        this.key = Objects.requireNonNull(key, "key");
+        this.clock = clock;
+        this.entries = new LinkedHashMap<Object, Retained<T>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Retained<T>> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T get() {
+        final Object k = keyOf(key.get());
+        synchronized (entries) {
+            final Retained<T> e = entries.get(k);
+            if (e != null) {
+                if (clock.getAsLong() - e.expires < 0) {
+                    hits.increment();
+                    return e.value;
+                }
+                entries.remove(k);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        final T result = super.get();
+        final Retained<T> e = new Retained<>(result, clock.getAsLong() + ttl);
+        synchronized (entries) {
+            entries.put(k, e);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private static Object keyOf(Object k) {
+        return k == null ? UNKEYED : k;
+    }
+}
@@ -0,0 +1,1345 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import static cotterpin.BuildStrategy.prototype;
+import static cotterpin.BuildStrategy.singleton;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.apache.commons.lang3.mutable.MutableInt;
+import org.apache.commons.lang3.reflect.Typed;
+
+import cotterpin.Blueprint.Child;
+import cotterpin.Blueprint.DoubleChild;
+import cotterpin.Blueprint.IntChild;
+import cotterpin.Blueprint.IntoMap;
+import cotterpin.Blueprint.LongChild;
+import cotterpin.Blueprint.Mutator;
+import cotterpin.Blueprint.Root;
+import cotterpin.BlueprintLike.ForEach;
+
+/**
+ * Entry point.
+ */
+public class Cotterpin {
+
+    private static class ChildStrategyManager implements ChildStrategy {
+        final ChildStrategy inherited;
+        ChildStrategy current;
+
+        ChildStrategyManager(ChildStrategy inherited) {
+            this.inherited = inherited;
+            this.current = inherited;
+        }
+
+        void adopt(ChildStrategy... childStrategies) {
+            ChildStrategy s = inherited;
+            for (ChildStrategy childStrategy : childStrategies) {
+                s = childStrategy.then(s);
+            }
+            synchronized (this) {
+                current = s;
+            }
+        }
+
+        @Override
+        public <P, T> BiConsumer<P, T> apply(BiConsumer<P, T> cmer) {
+            return current.apply(cmer);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static class BlueprintLikeImpl<T, S extends BlueprintLikeImpl<T, S>> implements BlueprintLike<T, S> {
+        final BuildStrategy<T> buildStrategy;
+        // strategy beneath any metering, which determines how builds proceed:
+        final BuildStrategy<T> strategy;
+        final ChildStrategyManager children;
+        String path = "/";
+        Events events;
+        PlanNode plan;
+        // node to which subordinate nodes are added:
+        PlanNode container;
+        // count of steps applied:
+        int steps;
+        // count of elements attached to the target, for Sized creation:
+        int attachments;
+        private int nodes;
+
+        BlueprintLikeImpl(BuildStrategy<T> buildStrategy, Supplier<T> target, ChildStrategy childStrategy) {
+            this.buildStrategy = buildStrategy;
+            strategy = MeteredStrategy.unwrap(buildStrategy);
+            buildStrategy.initialize(target instanceof Sized ? () -> ((Sized<T>) target).get(attachments) : target);
+            children = new ChildStrategyManager(childStrategy);
+            events = BuildProfiler.eventsOf(buildStrategy);
+            container = plan = new PlanNode(PlanNode.Kind.ROOT, path, buildStrategy, childStrategy);
+        }
+
+        @Override
+        public S times(int times, ObjIntConsumer<S> body) {
+            loop(PlanNode.Kind.TIMES, () -> iterate(times, bindTo((S) this, body))).iterations(times);
+            return (S) this;
+        }
+
+        @Override
+        public <V> S attachTimes(int times, IntFunction<? extends V> element,
+                BiConsumer<? super T, ? super V> attach) {
+            return attachTimes(times, element, attach, false);
+        }
+
+        @Override
+        public <X> ForEach<X, S> each(Iterable<X> values) {
+            return new ForEachImpl<>((S) this, values);
+        }
+
+        @Override
+        public <X, V> S attachEach(Iterable<? extends X> values, Function<? super X, ? extends V> element,
+                BiConsumer<? super T, ? super V> attach) {
+            return attachEach(values, element, attach, false);
+        }
+
+        @Override
+        public ParallelLoop<T, S> parallel() {
+            return new ParallelLoop<T, S>() {
+
+                @Override
+                public <V> S attachTimes(int times, IntFunction<? extends V> element,
+                        BiConsumer<? super T, ? super V> attach) {
+                    return BlueprintLikeImpl.this.attachTimes(times, element, attach, true);
+                }
+
+                @Override
+                public <X, V> S attachEach(Iterable<? extends X> values, Function<? super X, ? extends V> element,
+                        BiConsumer<? super T, ? super V> attach) {
+                    return BlueprintLikeImpl.this.attachEach(values, element, attach, true);
+                }
+            };
+        }
+
+        @Override
+        public S then(Consumer<? super T> mutation) {
+            buildStrategy.apply(mutation);
+            steps++;
+            return (S) this;
+        }
+
+        @Override
+        public S strategy(ChildStrategy... strategies) {
+            children.adopt(strategies);
+            return (S) this;
+        }
+
+        @Override
+        public PlanNode plan() {
+            return plan;
+        }
+
+        /**
+         * Allocate the path of a subordinate node.
+         *
+         * @return {@link String}
+         */
+        String subpath() {
+            return (path.length() == 1 ? "" : path) + '/' + nodes++;
+        }
+
+        /**
+         * Place a subordinate node.
+         *
+         * @param <B>  node type
+         * @param node to place
+         * @return {@code node}
+         */
+        <B extends BlueprintLikeImpl<?, ?>> B node(B node, PlanNode.Kind kind) {
+            node.path = subpath();
+            node.events = events;
+            node.container = node.plan = container.add(kind, node.path, node.buildStrategy,
+                    node.children.inherited);
+            return node;
+        }
+
+        /**
+         * Obtain the {@link Supplier} through which the value of a subordinate
+         * node is attached to this node, which may be built in advance of the
+         * steps of this node (see {@link BuildStrategy#parallel()}).
+         *
+         * @param <V>   value type
+         * @param value {@link Supplier}
+         * @return {@link Supplier}
+         */
+        <V> Supplier<V> fork(Supplier<V> value) {
+            return strategy instanceof ParallelStrategy ? ((ParallelStrategy<T>) strategy).fork(value) : value;
+        }
+
+        /**
+         * Obtain the {@link Supplier} through which the value of a subordinate
+         * node is attached to this node, launched on {@code executor} as each
+         * build of this node begins.
+         *
+         * @param <V>      value type
+         * @param value    {@link Supplier}
+         * @param executor {@link Executor}
+         * @return {@link Supplier}
+         */
+        <V> Supplier<V> async(Supplier<V> value, Executor executor) {
+            final BuildStrategy<T> s = strategy instanceof MutatorImpl.MutatorStrategy
+                    ? ((MutatorImpl.MutatorStrategy<T>) strategy).delegate
+                    : strategy;
+            return s instanceof PrototypeStrategy ? ((PrototypeStrategy<T>) s).async(value, executor) : value;
+        }
+
+        <V> S attachTimes(int times, IntFunction<? extends V> element, BiConsumer<? super T, ? super V> attach,
+                boolean parallel) {
+            Validate.isTrue(times >= 0);
+            Objects.requireNonNull(element);
+            final ParallelStrategy<T> pool = parallel ? pool() : null;
+            return compact(PlanNode.Kind.TIMES, times, element, attach, (t, cmer) -> {
+                if (pool != null) {
+                    pool.times(times, i -> cmer.accept(t, element.apply(i)));
+                    return;
+                }
+                for (int i = 0; i < times; i++) {
+                    cmer.accept(t, element.apply(i));
+                }
+            });
+        }
+
+        <X, V> S attachEach(Iterable<? extends X> values, Function<? super X, ? extends V> element,
+                BiConsumer<? super T, ? super V> attach, boolean parallel) {
+            Objects.requireNonNull(values);
+            Objects.requireNonNull(element);
+            final ParallelStrategy<T> pool = parallel ? pool() : null;
+            return compact(PlanNode.Kind.EACH, -1, element, attach, (t, cmer) -> {
+                if (pool != null) {
+                    pool.each(values, x -> cmer.accept(t, element.apply(x)));
+                    return;
+                }
+                for (X x : values) {
+                    cmer.accept(t, element.apply(x));
+                }
+            });
+        }
+
+        /**
+         * Obtain the {@link ParallelStrategy} on which to run a parallel compact
+         * loop, if any.
+         *
+         * @return {@link ParallelStrategy} or {@code null}
+         */
+        ParallelStrategy<T> pool() {
+            return strategy instanceof ParallelStrategy ? (ParallelStrategy<T>) strategy : null;
+        }
+
+        /**
+         * Record a compact loop as a single step.
+         *
+         * @param <V>        element type
+         * @param kind       of loop
+         * @param iterations if known, else negative
+         * @param element    function, whose plan is linked if a blueprint
+         * @param attach     {@link BiConsumer}
+         * @param loop       passed each target and the decorated {@code attach}
+         * @return {@code this}, fluently
+         */
+        <V> S compact(PlanNode.Kind kind, int iterations, Object element, BiConsumer<? super T, ? super V> attach,
+                BiConsumer<T, BiConsumer<T, V>> loop) {
+            Objects.requireNonNull(attach);
+            final String path = subpath();
+            final PlanNode node = container.add(kind, path, null, children.current);
+            node.compact();
+            node.iterations(iterations);
+            if (element instanceof BlueprintLike) {
+                node.add(((BlueprintLike<?, ?>) element).plan());
+            }
+            final BiConsumer<T, V> cmer = children.apply(events.mutator(path, (BiConsumer<T, V>) attach));
+            return then(events.step(path, kind == PlanNode.Kind.EACH ? "each" : "times", t -> loop.accept(t, cmer)));
+        }
+
+        /**
+         * Record subordinate nodes defined by {@code body} under a loop node.
+         *
+         * @param kind of loop
+         * @param body to run
+         * @return loop {@link PlanNode}
+         */
+        PlanNode loop(PlanNode.Kind kind, Runnable body) {
+            final PlanNode enclosing = container;
+            final PlanNode result = container.add(kind, path, null, null);
+            container = result;
+            try {
+                body.run();
+            } finally {
+                container = enclosing;
+            }
+            return result;
+        }
+    }
+
+    private static class ForEachImpl<E, B extends BlueprintLike<?, B>> implements ForEach<E, B> {
+        final B parent;
+        final Iterable<E> values;
+
+        ForEachImpl(B parent, Iterable<E> values) {
+            this.parent = Objects.requireNonNull(parent);
+            this.values = Objects.requireNonNull(values);
+        }
+
+        @Override
+        public B apply(BiConsumer<E, B> body) {
+            final int[] count = new int[1];
+            ((BlueprintLikeImpl<?, ?>) parent).loop(PlanNode.Kind.EACH, () -> values.forEach(v -> {
+                count[0]++;
+                body.accept(v, parent);
+            })).iterations(count[0]);
+            return parent;
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static class BlueprintImpl<T, S extends BlueprintImpl<T, S>> extends BlueprintLikeImpl<T, S>
+            implements Blueprint<T, S> {
+
+        private Map<List<Object>, Resolution<T, ?>> resolutions;
+        // count of elements attached to each component, by accessor and recorder:
+        private Map<List<Object>, MutableInt> counts;
+        private BulkStep<T, ?> bulk;
+        private int bulkMark;
+        private Resolution<T, ?>.Run run;
+        private int runMark;
+
+        BlueprintImpl(BuildStrategy<T> buildStrategy, Supplier<T> target, ChildStrategy childStrategy) {
+            super(buildStrategy, target, childStrategy);
+        }
+
+        /**
+         * Obtain the {@link Resolution} of a component of this node, shared among
+         * subordinate nodes specifying the same accessor and an equal
+         * {@link ComponentStrategy}.
+         *
+         * @param <C>      component type
+         * @param accessor {@link Function}
+         * @param strategy {@link ComponentStrategy}
+         * @return {@link Resolution}
+         */
+        <C> Resolution<T, C> resolution(Function<? super T, ? extends C> accessor, ComponentStrategy<T, C> strategy) {
+            if (resolutions == null) {
+                resolutions = new HashMap<>();
+                counts = new HashMap<>();
+            }
+            return (Resolution<T, C>) resolutions.computeIfAbsent(Arrays.asList(accessor, strategy),
+                    k -> new Resolution<>((Function<T, C>) accessor, strategy, count(accessor, strategy)));
+        }
+
+        /**
+         * Obtain the count of elements attached to a component of this node. An
+         * {@code ifNull} component is counted by its accessor and recorder alone,
+         * so that e.g. equivalent strategies specified within a loop body, whose
+         * {@code create} functions may be distinct instances, share a count.
+         *
+         * @param accessor {@link Function}
+         * @param strategy {@link ComponentStrategy}
+         * @return {@link MutableInt}
+         */
+        private MutableInt count(Function<?, ?> accessor, ComponentStrategy<?, ?> strategy) {
+            final Object recorder = strategy instanceof IfNull ? ((IfNull<?, ?>) strategy).record : strategy;
+            return counts.computeIfAbsent(Arrays.asList(accessor, recorder), k -> new MutableInt());
+        }
+
+        /**
+         * Record a primitive child step, which boxes its value only to apply a
+         * non-default {@link ChildStrategy}.
+         *
+         * @param <X>   boxed type
+         * @param open  state of the primitive child, which this closes
+         * @param step  unboxed step
+         * @param cmer  boxed mutator
+         * @param value boxed value
+         * @return {@code this}, fluently
+         */
+        private <X> S primitive(MutableBoolean open, Consumer<T> step, BiConsumer<T, X> cmer, Supplier<X> value) {
+            synchronized (open) {
+                Validate.validState(open.booleanValue(), "closed");
+                open.setFalse();
+            }
+            final String path = subpath();
+            final ChildStrategy childStrategy = children.current;
+            container.add(PlanNode.Kind.CHILD, path, null, childStrategy).attach(PlanNode.Attachment.ONTO, null);
+            if (childStrategy == ChildStrategy.DEFAULT) {
+                return then(events.step(path, "onto", step));
+            }
+            return then(events.step(path, "onto", value, childStrategy.apply(events.mutator(path, cmer))));
+        }
+
+        /**
+         * Learn whether attachments to this node by subordinate nodes employing
+         * {@code childStrategy} can be fused into {@link BulkStep}s: requires
+         * the default {@link ChildStrategy} and steps deferred until build time.
+         *
+         * @param childStrategy of subordinate node
+         * @return {@code boolean}
+         */
+        boolean fusible(ChildStrategy childStrategy) {
+            return childStrategy == ChildStrategy.DEFAULT && deferred();
+        }
+
+        /**
+         * Learn whether steps of this node are recorded for application at build
+         * time, rather than applied as they are specified.
+         *
+         * @return {@code boolean}
+         */
+        boolean deferred() {
+            return strategy instanceof PrototypeStrategy || strategy instanceof MutatorImpl.MutatorStrategy;
+        }
+
+        /**
+         * Obtain the {@link BulkStep.AddAll} step for {@code resolution}, reusing the
+         * immediately preceding step if it attaches to the same component.
+         *
+         * @param <C>        component type
+         * @param resolution of component
+         * @return {@link BulkStep.AddAll}
+         */
+        <C extends Collection<?>> BulkStep.AddAll<T, C> addAll(Resolution<T, C> resolution) {
+            if (bulk instanceof BulkStep.AddAll && bulk.resolution == resolution && bulkMark == steps) {
+                return (BulkStep.AddAll<T, C>) bulk;
+            }
+            return bulk(new BulkStep.AddAll<>(resolution, events, path));
+        }
+
+        /**
+         * Obtain the {@link BulkStep.PutAll} step for {@code resolution}, reusing the
+         * immediately preceding step if it attaches to the same component.
+         *
+         * @param <M>        component type
+         * @param resolution of component
+         * @return {@link BulkStep.PutAll}
+         */
+        <M extends Map<?, ?>> BulkStep.PutAll<T, M> putAll(Resolution<T, M> resolution) {
+            if (bulk instanceof BulkStep.PutAll && bulk.resolution == resolution && bulkMark == steps) {
+                return (BulkStep.PutAll<T, M>) bulk;
+            }
+            return bulk(new BulkStep.PutAll<>(resolution, events, path));
+        }
+
+        private <B extends BulkStep<T, ?>> B bulk(B step) {
+            then(step);
+            bulk = step;
+            bulkMark = steps;
+            return step;
+        }
+
+        /**
+         * Record a step using {@code resolution}, joining the {@link Resolution.Run}
+         * of the immediately preceding step if it uses the same component.
+         *
+         * @param <C>        component type
+         * @param resolution of component
+         * @param step       {@link Consumer} of the component
+         */
+        <C> void resolved(Resolution<T, C> resolution, Consumer<Resolution<T, C>.Component> step) {
+            if (run != null && run.resolution() == resolution && runMark == steps && deferred()) {
+                ((Resolution<T, C>.Run) run).add(step);
+                return;
+            }
+            final Resolution<T, C>.Run r = resolution.run(step);
+            then(r);
+            run = r;
+            runMark = steps;
+        }
+
+        @Override
+        public <X, C extends Child<X, T, S, C>> C child(Supplier<X> c) {
+            return (C) node(new ChildImpl(buildStrategy.child(), Objects.requireNonNull(c), this, children.current),
+                    PlanNode.Kind.CHILD);
+        }
+
+        @Override
+        public <X, C extends Child<X, T, S, C>> C childAsync(Supplier<X> c, Executor executor) {
+            final BuildStrategy<X> strategy = buildStrategy.child();
+            if (strategy instanceof PooledStrategy) {
+                // the value of a lookup, never to be recycled:
+                ((PooledStrategy<X>) strategy).unpool();
+            }
+            final ChildImpl child = new ChildImpl(strategy, Objects.requireNonNull(c), this, children.current);
+            child.executor = Objects.requireNonNull(executor);
+            return (C) node(child, PlanNode.Kind.CHILD);
+        }
+
+        @Override
+        public <X, C extends Child<X, T, S, C>> C child(CompletionStage<X> c) {
+            final CompletableFuture<X> future = c.toCompletableFuture();
+            return child(() -> Async.join(future));
+        }
+
+        @Override
+        public IntChild<T, S> childInt(IntSupplier c) {
+            Objects.requireNonNull(c);
+            final MutableBoolean open = new MutableBoolean(Boolean.TRUE);
+            return mutator -> primitive(open, t -> mutator.accept(t, c.getAsInt()), mutator::accept, c::getAsInt);
+        }
+
+        @Override
+        public LongChild<T, S> childLong(LongSupplier c) {
+            Objects.requireNonNull(c);
+            final MutableBoolean open = new MutableBoolean(Boolean.TRUE);
+            return mutator -> primitive(open, t -> mutator.accept(t, c.getAsLong()), mutator::accept, c::getAsLong);
+        }
+
+        @Override
+        public DoubleChild<T, S> childDouble(DoubleSupplier c) {
+            Objects.requireNonNull(c);
+            final MutableBoolean open = new MutableBoolean(Boolean.TRUE);
+            return mutator -> primitive(open, t -> mutator.accept(t, c.getAsDouble()), mutator::accept, c::getAsDouble);
+        }
+
+        @Override
+        public <X, M extends Mutator<X, T, S, M>> M mutate(Typed<X> type) {
+            return (M) node(new MutatorImpl(buildStrategy.child(), this, children.current), PlanNode.Kind.MUTATOR);
+        }
+
+        @Override
+        public <N extends WildChild<T, S, N>> N nul() {
+            final ChildStrategyManager _children = new ChildStrategyManager(children.current);
+            final MutableBoolean open = new MutableBoolean(Boolean.TRUE);
+
+            return (N) new WildChild<T, S, N>() {
+
+                @Override
+                public <X> S onto(BiConsumer<? super T, ? super X> mutator) {
+                    ensureOpen();
+                    final String path = wild(PlanNode.Attachment.ONTO, null);
+                    final BiConsumer<? super T, ? super X> cmer = children.apply(events.mutator(path, mutator));
+                    then(events.step(path, "onto", () -> null, cmer));
+                    return close();
+                }
+
+                @Override
+                public S addTo(Function<? super T, Collection<?>> coll,
+                        ComponentStrategy<T, ? extends Collection<?>> strategy) {
+                    ensureOpen();
+
+                    final String path = wild(PlanNode.Attachment.ADD_TO, strategy);
+                    final Resolution r = resolution(coll, (ComponentStrategy) strategy);
+                    r.attach();
+                    if (fusible(children.current)) {
+                        addAll(r).add(addTo(path, r), () -> null);
+                    } else {
+                        resolved(r, addTo(path, r.component()));
+                    }
+                    return close();
+                }
+
+                private <X> Consumer<X> addTo(String path, Function<X, Collection> accessor) {
+                    final Function<X, Collection> x = events.accessor(path, accessor);
+                    final BiConsumer<X, Object> cmer = children
+                            .apply(events.mutator(path, (u, t) -> x.apply(u).add(t)));
+                    return events.step(path, "addTo", () -> null, cmer);
+                }
+
+                @Override
+                public <K, M extends Map<? super K, ?>> IntoMap<K, ?, T, S> into(Function<? super T, M> map,
+                        ComponentStrategy<T, ? extends M> strategy) {
+                    ensureOpen();
+                    try {
+                        final String path = wild(PlanNode.Attachment.INTO, strategy);
+                        return new IntoMapImpl(() -> null, resolution(map, (ComponentStrategy) strategy),
+                                BlueprintImpl.this, children.current, path);
+                    } finally {
+                        close();
+                    }
+                }
+
+                @Override
+                public N strategy(ChildStrategy... strategies) {
+                    _children.adopt(strategies);
+                    return (N) this;
+                }
+
+                private String wild(PlanNode.Attachment attachment, ComponentStrategy<?, ?> strategy) {
+                    final String path = subpath();
+                    container.add(PlanNode.Kind.CHILD, path, null, children.current).attach(attachment, strategy);
+                    return path;
+                }
+
+                private synchronized void ensureOpen() {
+                    Validate.validState(open.booleanValue());
+                }
+
+                private synchronized S close() {
+                    try {
+                        return (S) BlueprintImpl.this;
+                    } finally {
+                        open.setFalse();
+                    }
+                }
+            };
+        }
+    }
+
+    private static class RootImpl<T, S extends RootImpl<T, S>> extends BlueprintImpl<T, S>
+            implements Blueprint.Root<T, S> {
+
+        final BlueprintLikeImpl<?, ?> source;
+
+        RootImpl(BuildStrategy<T> buildStrategy, Supplier<T> target) {
+            this(buildStrategy, target, null);
+        }
+
+        RootImpl(BuildStrategy<T> buildStrategy, Supplier<T> target, BlueprintLikeImpl<?, ?> source) {
+            super(buildStrategy, target, ChildStrategy.DEFAULT);
+            this.source = source;
+            if (source != null) {
+                plan.add(source.plan);
+            }
+        }
+
+        @Override
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        public <TT, SS extends Root<TT, SS>> SS map(Function<? super T, ? extends TT> xform) {
+            return (SS) new RootImpl(buildStrategy.child(), () -> Objects.requireNonNull(xform).apply(get()), this);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public S compile() {
+            // freeze the whole chain of blueprints mapped to this one:
+            BlueprintLikeImpl<?, ?> b = this;
+            while (b != null) {
+                b.buildStrategy.freeze();
+                b = b instanceof RootImpl ? ((RootImpl<?, ?>) b).source : null;
+            }
+            return (S) this;
+        }
+
+        @Override
+        public T get() {
+            return events.build(path, buildStrategy);
+        }
+    }
+
+    private static class ParameterizedImpl<A, T, S extends ParameterizedImpl<A, T, S>> extends BlueprintImpl<T, S>
+            implements Blueprint.Parameterized<A, T, S> {
+
+        private static final Object NONE = new Object();
+
+        static class NoBuildException extends IllegalStateException {
+            private static final long serialVersionUID = 1L;
+
+            NoBuildException() {
+                super("no ongoing build");
+            }
+        }
+
+        // identifies the input of this blueprint in the BuildContext:
+        final Object input;
+
+        ParameterizedImpl(BuildStrategy<T> buildStrategy, Function<A, T> target, Object input) {
+            super(buildStrategy, () -> target.apply(current(input)), ChildStrategy.DEFAULT);
+            this.input = input;
+        }
+
+        ParameterizedImpl(BuildStrategy<T> buildStrategy, Function<A, T> target) {
+            this(buildStrategy, target, new Object());
+        }
+
+        @Override
+        public T apply(A a) {
+            final BuildContext enclosing = BuildContext.bind(input, a);
+            try {
+                return events.build(path, buildStrategy);
+            } finally {
+                BuildContext.restore(enclosing);
+            }
+        }
+
+        @Override
+        public <X> Supplier<X> input(Function<? super A, ? extends X> xform) {
+            Objects.requireNonNull(xform);
+            return () -> xform.apply(current(input));
+        }
+
+        @Override
+        public <X> S each(Function<? super A, ? extends Iterable<? extends X>> values,
+                BiConsumer<? super T, ? super X> body) {
+            Objects.requireNonNull(values);
+            Objects.requireNonNull(body);
+            container.add(PlanNode.Kind.EACH, path, null, null);
+            return then(t -> {
+                final A a = current(input);
+                for (X x : values.apply(a)) {
+                    body.accept(t, x);
+                }
+            });
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public S compile() {
+            buildStrategy.freeze();
+            return (S) this;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <A> A current(Object input) {
+            final Object result = BuildContext.get(input, NONE);
+            if (result == NONE) {
+                throw new NoBuildException();
+            }
+            return (A) result;
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static class OfCollectionImpl<E, C extends Collection<E>, S extends OfCollectionImpl<E, C, S>>
+            extends BlueprintLikeImpl<C, S> implements Blueprint.OfCollection<E, C, S> {
+
+        OfCollectionImpl(BuildStrategy<C> buildStrategy, Supplier<C> c) {
+            super(buildStrategy, c, ChildStrategy.DEFAULT);
+        }
+
+        @Override
+        public C get() {
+            return events.build(path, buildStrategy);
+        }
+
+        @Override
+        public <R extends Blueprint.OfCollectionElement<E, C, S, R>> R element(Supplier<E> e) {
+            return (R) node(new OfCollectionElementImpl(buildStrategy.child(), e, this, children.current),
+                    PlanNode.Kind.ELEMENT);
+        }
+
+        @Override
+        public <T, SS extends Root<T, SS>> SS map(Function<? super C, ? extends T> xform) {
+            return (SS) new RootImpl(buildStrategy.child(), () -> Objects.requireNonNull(xform).apply(get()), this);
+        }
+
+        @Override
+        public S compile() {
+            buildStrategy.freeze();
+            return (S) this;
+        }
+    }
+
+    private static class OfCollectionElementImpl<E, C extends Collection<E>, P extends Blueprint.OfCollection<E, C, P>, S extends OfCollectionElementImpl<E, C, P, S>>
+            extends BlueprintImpl<E, S> implements Blueprint.OfCollectionElement<E, C, P, S>, Supplier<E> {
+
+        P parent;
+
+        OfCollectionElementImpl(BuildStrategy<E> buildStrategy, Supplier<E> target, P parent,
+                ChildStrategy childStrategy) {
+            super(buildStrategy, target, childStrategy);
+            this.parent = parent;
+        }
+
+        @Override
+        public P add() {
+            Validate.validState(parent != null);
+            try {
+                plan.attach(PlanNode.Attachment.ADD, null);
+                ((BlueprintLikeImpl<?, ?>) parent).attachments++;
+                final BiConsumer<C, E> add = children.apply(events.mutator(path, Collection::add));
+                parent.then(events.step(path, "add", ((BlueprintLikeImpl<?, ?>) parent).fork(this), add));
+                return parent;
+            } finally {
+                parent = null;
+            }
+        }
+
+        @Override
+        public E get() {
+            return buildStrategy.get();
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static class OfMapImpl<K, V, M extends Map<K, V>, S extends OfMapImpl<K, V, M, S>>
+            extends BlueprintLikeImpl<M, S> implements Blueprint.OfMap<K, V, M, S> {
+
+        OfMapImpl(BuildStrategy<M> buildStrategy, Supplier<M> m) {
+            super(buildStrategy, m, ChildStrategy.DEFAULT);
+        }
+
+        @Override
+        public M get() {
+            return events.build(path, buildStrategy);
+        }
+
+        @Override
+        public <R extends Blueprint.OfMapEntry<K, V, M, S, R>> R value(Supplier<V> v) {
+            return (R) node(new OfMapEntryImpl(buildStrategy.child(), v, this, children.current),
+                    PlanNode.Kind.VALUE);
+        }
+
+        @Override
+        public <T, SS extends Root<T, SS>> SS map(Function<? super M, ? extends T> xform) {
+            return (SS) new RootImpl(buildStrategy.child(), () -> Objects.requireNonNull(xform).apply(get()), this);
+        }
+
+        @Override
+        public S compile() {
+            buildStrategy.freeze();
+            return (S) this;
+        }
+    }
+
+    private static class OfMapEntryImpl<K, V, M extends Map<K, V>, P extends Blueprint.OfMap<K, V, M, P>, S extends OfMapEntryImpl<K, V, M, P, S>>
+            extends BlueprintImpl<V, S> implements Blueprint.OfMapEntry<K, V, M, P, S>, Supplier<V> {
+
+        P parent;
+
+        OfMapEntryImpl(BuildStrategy<V> buildStrategy, Supplier<V> target, P parent, ChildStrategy childStrategy) {
+            super(buildStrategy, target, childStrategy);
+            this.parent = parent;
+        }
+
+        @Override
+        public P at(Supplier<K> key) {
+            Validate.validState(parent != null);
+            try {
+                plan.attach(PlanNode.Attachment.AT, null);
+                ((BlueprintLikeImpl<?, ?>) parent).attachments++;
+                final BiConsumer<M, V> put = children.apply(events.mutator(path, (m, v) -> m.put(key.get(), v)));
+                parent.then(events.step(path, "at", ((BlueprintLikeImpl<?, ?>) parent).fork(this), put));
+                return parent;
+            } finally {
+                parent = null;
+            }
+        }
+
+        @Override
+        public V get() {
+            return buildStrategy.get();
+        }
+    }
+
+    private static class ChildImpl<T, U, P extends BlueprintImpl<U, P>, S extends ChildImpl<T, U, P, S>>
+            extends BlueprintImpl<T, S> implements Child<T, U, P, S>, Supplier<T> {
+
+        P parent;
+        // of an asynchronous value:
+        Executor executor;
+
+        ChildImpl(BuildStrategy<T> buildStrategy, Supplier<T> target, P parent, ChildStrategy childStrategy) {
+            super(buildStrategy, target, childStrategy);
+            this.parent = parent;
+        }
+
+        @Override
+        public P onto(BiConsumer<? super U, ? super T> mutator) {
+            ensureOpen();
+            plan.attach(PlanNode.Attachment.ONTO, null);
+            final BiConsumer<? super U, ? super T> cmer = children.apply(events.mutator(path, mutator));
+            parent.then(events.step(path, "onto", value(), cmer));
+            return close();
+        }
+
+        @Override
+        public <C extends Collection<? super T>> P addTo(Function<? super U, C> coll,
+                ComponentStrategy<U, C> strategy) {
+            ensureOpen();
+            plan.attach(PlanNode.Attachment.ADD_TO, strategy);
+
+            final Resolution<U, C> r = parent.resolution(coll, strategy);
+            final Supplier<T> value = value();
+            r.attach();
+            if (parent.fusible(children.current)) {
+                parent.addAll(r).add(addTo(r, value), value);
+            } else {
+                parent.resolved(r, addTo(r.component(), value));
+            }
+            return close();
+        }
+
+        private <X, C extends Collection<? super T>> Consumer<X> addTo(Function<X, C> accessor, Supplier<T> value) {
+            final Function<X, C> x = events.accessor(path, accessor);
+            final BiConsumer<X, T> cmer = children.apply(events.mutator(path, (u, t) -> x.apply(u).add(t)));
+            return events.step(path, "addTo", value, cmer);
+        }
+
+        @Override
+        public <K, M extends Map<? super K, ? super T>> IntoMap<K, T, U, P> into(Function<? super U, M> map,
+                ComponentStrategy<U, M> strategy) {
+            ensureOpen();
+            plan.attach(PlanNode.Attachment.INTO, strategy);
+            try {
+                return new IntoMapImpl<>(value(), parent.resolution(map, strategy), parent, children.current,
+                        path);
+            } finally {
+                close();
+            }
+        }
+
+        @Override
+        public <TT, SS extends Child<TT, U, P, SS>> SS map(Function<? super T, ? extends TT> xform) {
+            ensureOpen();
+            try {
+                @SuppressWarnings({ "unchecked", "rawtypes" })
+                final SS result = (SS) new ChildImpl(buildStrategy.child(), () -> xform.apply(get()), parent,
+                        children.current);
+                ((ChildImpl<?, ?, ?, ?>) result).executor = executor;
+                ((ChildImpl<?, ?, ?, ?>) result).path = path;
+                ((ChildImpl<?, ?, ?, ?>) result).events = events;
+                ((ChildImpl<?, ?, ?, ?>) result).container = ((ChildImpl<?, ?, ?, ?>) result).plan = plan;
+                return result;
+            } finally {
+                close();
+            }
+        }
+
+        @Override
+        public T get() {
+            return buildStrategy.get();
+        }
+
+        private Supplier<T> value() {
+            return executor == null ? parent.fork(this) : parent.async(this, executor);
+        }
+
+        private void ensureOpen() {
+            Validate.validState(parent != null, "closed");
+        }
+
+        private P close() {
+            try {
+                return parent;
+            } finally {
+                parent = null;
+            }
+        }
+    }
+
+    private static class MutatorImpl<T, U, P extends BlueprintImpl<U, P>, S extends MutatorImpl<T, U, P, S>>
+            extends BlueprintImpl<T, S> implements Mutator<T, U, P, S> {
+
+        /**
+         * Records the mutations of a component, which are then applied to each
+         * component instance obtained from a parent object. No per-build state is
+         * held, so a single instance serves concurrent builds.
+         */
+        private static class MutatorStrategy<T> implements BuildStrategy<T> {
+            final PrototypeStrategy<T> delegate = new PrototypeStrategy<>();
+            final BuildStrategy<?> realParent;
+
+            MutatorStrategy(BuildStrategy<?> realParent) {
+                this.realParent = realParent;
+            }
+
+            @Override
+            public T get() {
+                throw new IllegalStateException("component must be obtained from parent");
+            }
+
+            @Override
+            public void initialize(Supplier<T> target) {
+            }
+
+            @Override
+            public void apply(Consumer<? super T> mutation) {
+                delegate.apply(mutation);
+            }
+
+            @Override
+            public <U> BuildStrategy<U> child() {
+                return realParent.child();
+            }
+
+            @Override
+            public void freeze() {
+                delegate.freeze();
+            }
+
+            void mutate(T component) {
+                Validate.validState(component != null);
+                delegate.mutate(component);
+            }
+        }
+
+        P parent;
+
+        MutatorImpl(BuildStrategy<T> buildStrategy, P parent, ChildStrategy childStrategy) {
+            super(new MutatorStrategy<>(buildStrategy), null, childStrategy);
+            this.parent = parent;
+        }
+
+        @Override
+        public P onto(Function<? super U, ? extends T> accessor, ComponentStrategy<U, T> strategy) {
+            Validate.validState(parent != null);
+            plan.attach(PlanNode.Attachment.ONTO, strategy);
+
+            final Resolution<U, T> r = parent.resolution(accessor, strategy);
+            final Function<Resolution<U, T>.Component, T> x = events.accessor(path, r.component());
+            final MutatorStrategy<T> mutations = (MutatorStrategy<T>) buildStrategy;
+
+            parent.resolved(r, events.step(path, "mutate", p -> mutations.mutate(x.apply(p))));
+            // mutator steps are complete; its children belong to the real parent strategy:
+            buildStrategy.freeze();
+            try {
+                return parent;
+            } finally {
+                parent = null;
+            }
+        }
+    }
+
+    private static class IntoMapImpl<K, V, U, P extends BlueprintImpl<U, P>, M extends Map<? super K, ? super V>>
+            implements IntoMap<K, V, U, P> {
+
+        final Supplier<V> value;
+        final Resolution<U, M> resolution;
+        final ChildStrategy childStrategy;
+        final String path;
+        P parent;
+
+        IntoMapImpl(Supplier<V> value, Resolution<U, M> resolution, P parent, ChildStrategy childStrategy,
+                String path) {
+            this.value = value;
+            this.resolution = resolution;
+            this.parent = parent;
+            this.childStrategy = childStrategy;
+            this.path = path;
+        }
+
+        @Override
+        public P at(Supplier<K> key) {
+            Validate.validState(parent != null);
+
+            resolution.attach();
+            if (parent.fusible(childStrategy)) {
+                parent.putAll(resolution).add(into(resolution, key), key, value);
+            } else {
+                parent.resolved(resolution, into(resolution.component(), key));
+            }
+            return close();
+        }
+
+        private <X> Consumer<X> into(Function<X, M> accessor, Supplier<K> key) {
+            final Function<X, M> map = parent.events.accessor(path, accessor);
+            final BiConsumer<X, V> cmer = childStrategy
+                    .apply(parent.events.mutator(path, (u, v) -> map.apply(u).put(key.get(), v)));
+            return parent.events.step(path, "into", value, cmer);
+        }
+
+        private P close() {
+            try {
+                return parent;
+            } finally {
+                parent = null;
+            }
+        }
+    }
+
+    /**
+     * Begin to build a {@link Blueprint} (implicit singleton
+     * {@link BuildStrategy}).
+     *
+     * @param <T> built type
+     * @param <R> {@link Blueprint.Root} type
+     * @param t   value {@link Supplier}
+     * @return R
+     */
+    public static <T, R extends Blueprint.Root<T, R>> R build(Supplier<T> t) {
+        return build(singleton(), t);
+    }
+
+    /**
+     * Begin to build a {@link Blueprint}.
+     *
+     * @param strategy for build
+     * @param t        value {@link Supplier}
+     *
+     * @param <T>      built type
+     * @param <R>      {@link Blueprint.Root} type
+     * @return R
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, R extends Blueprint.Root<T, R>> R build(BuildStrategy<T> strategy, Supplier<T> t) {
+        return (R) new RootImpl<>(Objects.requireNonNull(strategy), t);
+    }
+
+    /**
+     * Begin to build a {@link Blueprint} (implicit singleton
+     * {@link BuildStrategy}).
+     *
+     * @param <T> built type
+     * @param <R> {@link Blueprint.Root} type
+     * @param t   value
+     * @return R
+     */
+    public static <T, R extends Blueprint.Root<T, R>> R build(T t) {
+        return build(singleton(), () -> t);
+    }
+
+    /**
+     * Begin to build a {@link Blueprint.Parameterized} (implicit prototype
+     * {@link BuildStrategy}).
+     *
+     * @param <A> input type
+     * @param <T> built type
+     * @param <R> {@link Blueprint.Parameterized} type
+     * @param t   value {@link Function}
+     * @return R
+     */
+    public static <A, T, R extends Blueprint.Parameterized<A, T, R>> R parameterized(Function<A, T> t) {
+        return parameterized(prototype(), t);
+    }
+
+    /**
+     * Begin to build a {@link Blueprint.Parameterized}. Since each build
+     * depends upon its input, {@code strategy} must not create its target
+     * eagerly, as e.g. a {@link BuildStrategy#singleton() singleton} does.
+     *
+     * @param strategy for build
+     * @param t        value {@link Function}
+     *
+     * @param <A>      input type
+     * @param <T>      built type
+     * @param <R>      {@link Blueprint.Parameterized} type
+     * @return R
+     * @throws IllegalArgumentException if {@code strategy} creates its target
+     *                                  outside of a build
+     */
+    @SuppressWarnings("unchecked")
+    public static <A, T, R extends Blueprint.Parameterized<A, T, R>> R parameterized(BuildStrategy<T> strategy,
+            Function<A, T> t) {
+        Objects.requireNonNull(strategy);
+        Objects.requireNonNull(t);
+        try {
+            return (R) new ParameterizedImpl<>(strategy, t);
+        } catch (ParameterizedImpl.NoBuildException e) {
+            throw new IllegalArgumentException("strategy must not create its target outside of a build", e);
+        }
+    }
+
+    /**
+     * Shorthand for {@link #build(Supplier)}.
+     *
+     * @param <T> built type
+     * @param <R> {@link Blueprint.Root} type
+     * @param t   value {@link Supplier}
+     * @return R
+     */
+    public static <T, R extends Blueprint.Root<T, R>> R $(Supplier<T> t) {
+        return build(singleton(), t);
+    }
+
+    /**
+     * Shorthand for {@link #build(BuildStrategy, Supplier)}.
+     *
+     * @param strategy for build
+     * @param t        value {@link Supplier}
+     *
+     * @param <T>      built type
+     * @param <R>      {@link Blueprint.Root} type
+     * @return R
+     */
+    public static <T, R extends Blueprint.Root<T, R>> R $(BuildStrategy<T> strategy, Supplier<T> t) {
+        return build(strategy, t);
+    }
+
+    /**
+     * Shorthand for {@link #build(Object)}.
+     *
+     * @param <T> built type
+     * @param <R> {@link Blueprint.Root} type
+     * @param t   value
+     * @return R
+     */
+    public static <T, R extends Blueprint.Root<T, R>> R $(T t) {
+        return build(singleton(), () -> t);
+    }
+
+    /**
+     * Begin to build a (root) {@link Collection} blueprint (implicit singleton
+     * strategy).
+     *
+     * @param <E> element type
+     * @param <C> built type
+     * @param <R> {@link Blueprint.OfCollection} type
+     * @param c   value {@link Supplier}
+     * @return R
+     */
+    public static <E, C extends Collection<E>, R extends Blueprint.OfCollection<E, C, R>> R buildCollection(
+            Supplier<C> c) {
+        return buildCollection(singleton(), c);
+    }
+
+    /**
+     * Begin to build a (root) {@link Collection} blueprint.
+     *
+     * @param <E>      element type
+     * @param <C>      built type
+     * @param <R>      {@link Blueprint.OfCollection} type
+     * @param strategy
+     * @param c        value {@link Supplier}
+     * @return R
+     */
+    @SuppressWarnings("unchecked")
+    public static <E, C extends Collection<E>, R extends Blueprint.OfCollection<E, C, R>> R buildCollection(
+            BuildStrategy<C> strategy, Supplier<C> c) {
+        return (R) new OfCollectionImpl<>(strategy, c);
+    }
+
+    /**
+     * Shorthand for {@link #buildCollection(Supplier)}.
+     *
+     * @param <E> element type
+     * @param <C> built type
+     * @param <R> {@link Blueprint.OfCollection} type
+     * @param c   value {@link Supplier}
+     * @return R
+     */
+    public static <E, C extends Collection<E>, R extends Blueprint.OfCollection<E, C, R>> R c$(Supplier<C> c) {
+        return buildCollection(singleton(), c);
+    }
+
+    /**
+     * Shorthand for {@link #buildCollection(BuildStrategy, Supplier)}.
+     *
+     * @param <E>      element type
+     * @param <C>      built type
+     * @param <R>      {@link Blueprint.OfCollection} type
+     * @param strategy build strategy
+     * @param c        value {@link Supplier}
+     * @return R
+     */
+    public static <E, C extends Collection<E>, R extends Blueprint.OfCollection<E, C, R>> R c$(
+            BuildStrategy<C> strategy, Supplier<C> c) {
+        return buildCollection(strategy, c);
+    }
+
+    /**
+     * Begin to build a (root) {@link Map} blueprint.
+     *
+     * @param <K>      key type
+     * @param <V>      value type
+     * @param <M>      {@link Map} type
+     * @param <R>      {@link Blueprint.OfMap} type
+     * @param strategy build strategy
+     * @param m        value {@link Supplier}
+     * @return R
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V, M extends Map<K, V>, R extends Blueprint.OfMap<K, V, M, R>> R buildMap(
+            BuildStrategy<M> strategy, Supplier<M> m) {
+        return (R) new OfMapImpl<>(strategy, m);
+    }
+
+    /**
+     * Begin to build a (root) {@link Map} blueprint (implicit singleton strategy).
+     *
+     * @param <K> key type
+     * @param <V> value type
+     * @param <M> {@link Map} type
+     * @param <R> {@link Blueprint.OfMap} type
+     * @param m   value {@link Supplier}
+     * @return R
+     */
+    public static <K, V, M extends Map<K, V>, R extends Blueprint.OfMap<K, V, M, R>> R buildMap(Supplier<M> m) {
+        return buildMap(singleton(), m);
+    }
+
+    /**
+     * Shorthand for {@link #buildMap(BuildStrategy, Supplier)}.
+     *
+     * @param <K>      key type
+     * @param <V>      value type
+     * @param <M>      {@link Map} type
+     * @param <R>      {@link Blueprint.OfMap} type
+     * @param strategy build strategy
+     * @param m        value {@link Supplier}
+     * @return R
+     */
+    public static <K, V, M extends Map<K, V>, R extends Blueprint.OfMap<K, V, M, R>> R m$(BuildStrategy<M> strategy,
+            Supplier<M> m) {
+        return buildMap(strategy, m);
+    }
+
+    /**
+     * Shorthand for {@link #buildMap(Supplier)}.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     * @param <M> {@link Map} type
+     * @param <R> {@link Blueprint.OfMap} type
+     * @param m   value {@link Supplier}
+     * @return R
+     */
+    public static <K, V, M extends Map<K, V>, R extends Blueprint.OfMap<K, V, M, R>> R m$(Supplier<M> m) {
+        return buildMap(m);
+    }
+
+    /**
+     * Obtain a {@link BiConsumer} which applies to a bean of type {@code type}
+     * each entry of a {@link Map} row whose key names one of its public setters,
+     * ignoring other entries; e.g.
+     * {@code child(row).onto(Cotterpin.bind(Bean.class))}. Setters are
+     * discovered once per type and adapted without reflection, so that binding
+     * a row costs a lookup and a direct call per entry. Overloaded setters of a
+     * property resolve to the one accepting the type of its getter, else to
+     * the one accepting the most specific type. The adapted setters are
+     * retained softly, so they neither pin the class loader of {@code type}
+     * nor survive memory pressure while unused.
+     *
+     * @param <T>  bean type
+     * @param type public bean {@link Class}
+     * @return {@link BiConsumer}
+     * @throws IllegalArgumentException if the setters of {@code type} are
+     *                                  inaccessible, or if the overloaded
+     *                                  setters of a property accept unrelated
+     *                                  types, none that of its getter
+     */
+    public static <T> BiConsumer<T, Map<String, ?>> bind(Class<T> type) {
+        return Binding.of(Objects.requireNonNull(type));
+    }
+
+    private static <T> IntConsumer bindTo(T t, ObjIntConsumer<T> cmer) {
+        return i -> cmer.accept(t, i);
+    }
+
+    private static void iterate(int times, IntConsumer body) {
+        if (times == 0) {
+            return;
+        }
+        Validate.isTrue(times > 0);
+        for (int i = 0; i < times; i++) {
+            body.accept(i);
+        }
+    }
+
+    private Cotterpin() {
+    }
+}
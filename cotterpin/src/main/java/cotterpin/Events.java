@@ -0,0 +1,135 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Build instrumentation hooks. This implementation is transparent; on Java 11+
+ * the multi-release JAR supplies {@code cotterpin.JfrEvents}, which emits Java
+ * Flight Recorder events.
+ */
+class Events {
+
+    /**
+     * Singleton instance.
+     */
+    static final Events INSTANCE = load();
+
+    private static Events load() {
+        try {
+            return (Events) Class.forName("cotterpin.JfrEvents").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new Events();
+        }
+    }
+
+    /**
+     * Perform a root build.
+     *
+     * @param <T>   built type
+     * @param path  of root node
+     * @param build {@link Supplier}
+     * @return T
+     */
+    <T> T build(String path, Supplier<T> build) {
+        return build.get();
+    }
+
+    /**
+     * Create a step that attaches a value to its parent.
+     *
+     * @param <P>   parent type
+     * @param <T>   value type
+     * @param path  of value node
+     * @param kind  of step
+     * @param value {@link Supplier}
+     * @param cmer  to attach value to parent
+     * @return {@link Consumer}
+     */
+    <P, T> Consumer<P> step(String path, String kind, Supplier<? extends T> value, BiConsumer<P, T> cmer) {
+        return p -> cmer.accept(p, value.get());
+    }
+
+    /**
+     * Create a step against a parent.
+     *
+     * @param <P>  parent type
+     * @param path of node
+     * @param kind of step
+     * @param step {@link Consumer}
+     * @return {@link Consumer}
+     */
+    <P> Consumer<P> step(String path, String kind, Consumer<P> step) {
+        return step;
+    }
+
+    /**
+     * Instrument the mutator of a step, i.e. the function that attaches a
+     * value to its parent before any {@link ChildStrategy} is applied.
+     *
+     * @param <P>     parent type
+     * @param <T>     value type
+     * @param path    of node
+     * @param mutator {@link BiConsumer}
+     * @return {@link BiConsumer}
+     */
+    <P, T> BiConsumer<P, T> mutator(String path, BiConsumer<P, T> mutator) {
+        return mutator;
+    }
+
+    /**
+     * Instrument the component accessor of a step, as decorated by its
+     * {@link ComponentStrategy}.
+     *
+     * @param <P>      parent type
+     * @param <T>      component type
+     * @param path     of node
+     * @param accessor {@link Function}
+     * @return {@link Function}
+     */
+    <P, T> Function<P, T> accessor(String path, Function<P, T> accessor) {
+        return accessor;
+    }
+
+    /**
+     * Learn whether each step is currently instrumented, in which case a
+     * {@link BulkStep} applies the steps it fuses one by one so that each is
+     * observed. Only an explicitly opted-in instrument, i.e. a
+     * {@link BuildProfiler}, may answer {@code true}: otherwise fused steps are
+     * instrumented together.
+     *
+     * @return {@code boolean}
+     */
+    boolean instrumented() {
+        return false;
+    }
+
+    /**
+     * Create a missing component.
+     *
+     * @param <T>    component type
+     * @param parent object
+     * @param create {@link Supplier}
+     * @return T
+     */
+    <T> T component(Object parent, Supplier<? extends T> create) {
+        return create.get();
+    }
+}
@@ -18,6 +18,7 @@ package cotterpin;
 import java.util.Objects;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.IntSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -48,13 +49,52 @@ class IfNull<P, T> implements ComponentStrategy<P, T> {
      */
     @Override
     public Function<P, T> apply(Function<P, T> t) {
-        return p -> obtainFrom(p, t);
+        return p -> obtainFrom(p, t, create);
     }
 
-    private T obtainFrom(P parent, Function<? super P, ? extends T> retrieve) {
+    /**
+     * Apply this strategy, creating a missing {@link Sized} component for the
+     * number of elements reported by {@code size}.
+     *
+     * @param t    accessor
+     * @param size {@link IntSupplier}
+     * @return {@link Function}
+     */
+    Function<P, T> apply(Function<P, T> t, IntSupplier size) {
+        if (create instanceof Sized) {
+            final Sized<? extends T> sized = (Sized<? extends T>) create;
+            return p -> obtainFrom(p, t, () -> sized.get(size.getAsInt()));
+        }
+        return apply(t);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof IfNull)) {
+            return false;
+        }
+        final IfNull<?, ?> other = (IfNull<?, ?>) obj;
+        return record.equals(other.record) && create.equals(other.create);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(record, create);
+    }
+
+    private T obtainFrom(P parent, Function<? super P, ? extends T> retrieve, Supplier<? extends T> create) {
         T result = retrieve.apply(parent);
         if (result == null) {
-            result = create.get();
+            result = Events.INSTANCE.component(parent, create);
             record.accept(parent, result);
         }
         return result;
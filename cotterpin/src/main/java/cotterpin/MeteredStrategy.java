@@ -0,0 +1,268 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Metered {@link BuildStrategy}: delegates, measuring each {@link #get()} into
+ * striped counters exposed as a platform {@link BlueprintMetricsMXBean}.
+ * Blueprints build as their delegate dictates; see {@link #unwrap(BuildStrategy)}.
+ *
+ * @param <T> built type
+ */
+class MeteredStrategy<T> implements BuildStrategy.Metered<T> {
+
+    private class Metrics implements BlueprintMetricsMXBean {
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            MeteredStrategy.this.enabled = enabled;
+        }
+
+        @Override
+        public long getBuilds() {
+            return builds.sum();
+        }
+
+        @Override
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        @Override
+        public long getTotalNanos() {
+            return nanos.sum();
+        }
+
+        @Override
+        public double getMeanNanos() {
+            final long n = builds.sum();
+            return n == 0 ? 0 : (double) nanos.sum() / n;
+        }
+
+        @Override
+        public long[] getLatencyHistogram() {
+            final long[] result = new long[histogram.length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = histogram[i].sum();
+            }
+            return result;
+        }
+
+        @Override
+        public void reset() {
+            builds.reset();
+            failures.reset();
+            nanos.reset();
+            for (LongAdder bucket : histogram) {
+                bucket.reset();
+            }
+        }
+    }
+
+    /**
+     * Domain under which metrics are registered.
+     */
+    static final String DOMAIN = "cotterpin";
+
+    final String name;
+    private final BuildStrategy<T> delegate;
+    private final ObjectName objectName;
+    private final Metrics metrics = new Metrics();
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder[] histogram = new LongAdder[Long.SIZE - 1];
+    private volatile boolean enabled = true;
+
+    MeteredStrategy(String name, BuildStrategy<T> delegate) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = new LongAdder();
+        }
+        try {
+            objectName = objectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Metered {@link BuildStrategy.Pooled} strategy, which measures each
+     * {@link #lease()} as a build.
+     *
+     * @param <T> built type
+     */
+    static class OfPooled<T> extends MeteredStrategy<T> implements BuildStrategy.MeteredPooled<T> {
+        private final Pooled<T> pooled;
+
+        OfPooled(String name, Pooled<T> delegate) {
+            super(name, delegate);
+            this.pooled = delegate;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Lease<T> lease() {
+            return measure(pooled::lease);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public <U> MeteredPooled<T> reset(Class<U> type, Consumer<? super U> reset) {
+            pooled.reset(type, reset);
+            return this;
+        }
+    }
+
+    /**
+     * Obtain the strategy beneath any metering of {@code strategy}, which
+     * determines how its builds proceed.
+     *
+     * @param <T>      built type
+     * @param strategy {@link BuildStrategy}
+     * @return {@link BuildStrategy}
+     */
+    static <T> BuildStrategy<T> unwrap(BuildStrategy<T> strategy) {
+        BuildStrategy<T> result = strategy;
+        while (result instanceof MeteredStrategy) {
+            result = ((MeteredStrategy<T>) result).delegate;
+        }
+        return result;
+    }
+
+    /**
+     * Get the {@link ObjectName} under which metrics for the named blueprint
+     * are registered.
+     *
+     * @param name blueprint name
+     * @return {@link ObjectName}
+     * @throws JMException if {@code name} is invalid
+     */
+    static ObjectName objectName(String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Blueprint,name=" + ObjectName.quote(name));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T get() {
+        return measure(delegate);
+    }
+
+    /**
+     * Obtain the result of {@code build}, measuring it if enabled.
+     *
+     * @param <R>   result type
+     * @param build {@link Supplier}
+     * @return R
+     */
+    <R> R measure(Supplier<R> build) {
+        if (!enabled) {
+            return build.get();
+        }
+        final long start = System.nanoTime();
+        final R result;
+        try {
+            result = build.get();
+        } catch (RuntimeException | Error e) {
+            failures.increment();
+            throw e;
+        }
+        final long elapsed = System.nanoTime() - start;
+        builds.increment();
+        nanos.add(elapsed);
+        histogram[elapsed <= 1 ? 0 : Long.SIZE - 1 - Long.numberOfLeadingZeros(elapsed)].increment();
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initialize(Supplier<T> target) {
+        delegate.initialize(target);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void apply(Consumer<? super T> mutation) {
+        delegate.apply(mutation);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <U> BuildStrategy<U> child() {
+        return delegate.child();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void freeze() {
+        delegate.freeze();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BlueprintMetricsMXBean metrics() {
+        return metrics;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            // already unregistered
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+/**
+ * Parallel {@link BuildStrategy}: a prototype which builds the values of its
+ * subordinate nodes on a {@link ForkJoinPool} before applying its recorded
+ * steps, in order, on the building thread. Compact loops begun via
+ * {@link BlueprintLike#parallel()} are themselves split across the pool.
+ *
+ * @param <T> built type
+ */
+class ParallelStrategy<T> extends PrototypeStrategy<T> {
+    private static final Supplier<?>[] EMPTY = new Supplier<?>[0];
+
+    /**
+     * Task run in the {@link BuildContext} of the build that invoked it, which
+     * records the first failure among itself and its subtasks so that the
+     * original exception can be rethrown to the caller.
+     */
+    private abstract static class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final BuildContext context;
+        final AtomicReference<Throwable> failure;
+
+        Task() {
+            this.context = BuildContext.capture();
+            this.failure = new AtomicReference<>();
+        }
+
+        Task(Task parent) {
+            this.context = parent.context;
+            this.failure = parent.failure;
+        }
+
+        @Override
+        protected final void compute() {
+            final BuildContext enclosing = BuildContext.capture();
+            BuildContext.restore(context);
+            try {
+                run();
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+                throw e;
+            } finally {
+                BuildContext.restore(enclosing);
+            }
+        }
+
+        abstract void run();
+    }
+
+    private class Fork extends Task {
+        private static final long serialVersionUID = 1L;
+
+        final Object[] values;
+        final int from;
+        final int to;
+
+        Fork(Object[] values) {
+            this.values = values;
+            this.from = 0;
+            this.to = values.length;
+        }
+
+        Fork(Fork parent, int from, int to) {
+            super(parent);
+            this.values = parent.values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        void run() {
+            if (to - from <= granularity) {
+                for (int i = from; i < to; i++) {
+                    values[i] = forks[i].get();
+                }
+            } else {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new Fork(this, from, mid), new Fork(this, mid, to));
+            }
+        }
+    }
+
+    private static class Range extends Task {
+        private static final long serialVersionUID = 1L;
+
+        final int from;
+        final int to;
+        final int threshold;
+        final IntConsumer body;
+
+        Range(int to, int threshold, IntConsumer body) {
+            this.from = 0;
+            this.to = to;
+            this.threshold = threshold;
+            this.body = body;
+        }
+
+        Range(Range parent, int from, int to) {
+            super(parent);
+            this.from = from;
+            this.to = to;
+            this.threshold = parent.threshold;
+            this.body = parent.body;
+        }
+
+        @Override
+        void run() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    body.accept(i);
+                }
+            } else {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new Range(this, from, mid), new Range(this, mid, to));
+            }
+        }
+    }
+
+    private static class Split<X> extends Task {
+        private static final long serialVersionUID = 1L;
+
+        final Spliterator<X> spliterator;
+        final long threshold;
+        final Consumer<? super X> body;
+
+        Split(Spliterator<X> spliterator, long threshold, Consumer<? super X> body) {
+            this.spliterator = spliterator;
+            this.threshold = threshold;
+            this.body = body;
+        }
+
+        Split(Split<X> parent, Spliterator<X> spliterator) {
+            super(parent);
+            this.spliterator = spliterator;
+            this.threshold = parent.threshold;
+            this.body = parent.body;
+        }
+
+        @Override
+        void run() {
+            final Spliterator<X> prefix;
+            if (spliterator.estimateSize() > threshold && (prefix = spliterator.trySplit()) != null) {
+                invokeAll(new Split<>(this, prefix), new Split<>(this, spliterator));
+            } else {
+                spliterator.forEachRemaining(body);
+            }
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int granularity;
+    private Supplier<?>[] forks = EMPTY;
+    private int size;
+
+    /**
+     * Create a new {@link ParallelStrategy} instance.
+     *
+     * @param pool        {@link ForkJoinPool}
+     * @param granularity maximum number of values built by a single task
+     */
+    ParallelStrategy(ForkJoinPool pool, int granularity) {
+        Validate.notNull(pool, "pool");
+        Validate.isTrue(granularity > 0, "granularity must be positive");
+        this.pool = pool;
+        this.granularity = granularity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T get() {
+        final T t = create();
+        final int n = size;
+        if (n <= granularity) {
+            return mutate(t);
+        }
+        final Object[] v = new Object[n];
+        invoke(new Fork(v));
+        // bound to this strategy in the BuildContext, shadowing any enclosing build of it:
+        final BuildContext enclosing = BuildContext.bind(this, v);
+        try {
+            return mutate(t);
+        } finally {
+            BuildContext.restore(enclosing);
+        }
+    }
+
+    /**
+     * Register the value of a subordinate node to be built in parallel.
+     *
+     * @param <V>   value type
+     * @param value {@link Supplier}
+     * @return {@link Supplier} of the value built for the ongoing build
+     */
+    @SuppressWarnings("unchecked")
+    <V> Supplier<V> fork(Supplier<V> value) {
+        Validate.validState(!frozen, "compiled");
+        if (size == forks.length) {
+            forks = Arrays.copyOf(forks, Math.max(8, size << 1));
+        }
+        final int index = size;
+        forks[size++] = value;
+        return () -> {
+            final Object[] v = BuildContext.get(this, null);
+            return v == null ? value.get() : (V) v[index];
+        };
+    }
+
+    /**
+     * Run {@code body} for each index in {@code [0, times)} on the pool of
+     * this {@link ParallelStrategy}, in no particular order.
+     *
+     * @param times iteration count
+     * @param body  {@link IntConsumer}
+     */
+    void times(int times, IntConsumer body) {
+        invoke(new Range(times, threshold(times), body));
+    }
+
+    /**
+     * Run {@code body} for each of {@code values} on the pool of this
+     * {@link ParallelStrategy}, in no particular order, splitting the work by
+     * {@link Spliterator}.
+     *
+     * @param <X>    value type
+     * @param values {@link Iterable}
+     * @param body   {@link Consumer}
+     */
+    <X> void each(Iterable<X> values, Consumer<? super X> body) {
+        final Spliterator<X> spliterator = values.spliterator();
+        final long size = spliterator.estimateSize();
+        invoke(new Split<>(spliterator, size == Long.MAX_VALUE ? granularity : threshold(size), body));
+    }
+
+    @Override
+    <U> BuildStrategy<U> newChild() {
+        return new ParallelStrategy<>(pool, granularity);
+    }
+
+    // leaves of ~4 tasks per worker, as for parallel streams:
+    private int threshold(long size) {
+        return (int) Math.max(granularity, Math.min(Integer.MAX_VALUE, size / (pool.getParallelism() << 2)));
+    }
+
+    private void invoke(Task task) {
+        try {
+            if (ForkJoinTask.getPool() == pool) {
+                task.invoke();
+            } else {
+                pool.invoke(task);
+            }
+        } catch (Throwable e) {
+            // the original failure rather than ForkJoinTask's copy of it:
+            final Throwable cause = task.failure.get();
+            ExceptionUtils.rethrow(cause == null ? e : cause);
+        }
+    }
+}
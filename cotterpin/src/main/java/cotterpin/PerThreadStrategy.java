@@ -0,0 +1,48 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+/**
+ * Per-thread {@link BuildStrategy}: a prototype whose built instance is
+ * retained by, and reused within, the building thread.
+ *
+ * @param <T> built type
+ */
+class PerThreadStrategy<T> extends PrototypeStrategy<T> implements BuildStrategy.PerThread<T> {
+
+    private final ThreadLocal<T> instance = new ThreadLocal<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T get() {
+        T result = instance.get();
+        if (result == null) {
+            result = super.get();
+            instance.set(result);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        instance.remove();
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Node of the plan recorded by a blueprint as it is defined.
+ */
+public final class PlanNode {
+
+    /**
+     * Node kind.
+     */
+    public enum Kind {
+        /**
+         * Root blueprint.
+         */
+        ROOT,
+
+        /**
+         * Child value blueprint.
+         */
+        CHILD,
+
+        /**
+         * Component {@link Blueprint.Mutator}.
+         */
+        MUTATOR,
+
+        /**
+         * {@link Blueprint.OfCollectionElement}.
+         */
+        ELEMENT,
+
+        /**
+         * {@link Blueprint.OfMapEntry}.
+         */
+        VALUE,
+
+        /**
+         * {@code each} loop. Loops over fixed values are unrolled as they are
+         * defined, so their iterations appear as children; a
+         * {@link PlanNode#isCompact() compact} loop is evaluated per build.
+         */
+        EACH,
+
+        /**
+         * {@code times} loop, unrolled as it is defined unless
+         * {@link PlanNode#isCompact() compact}.
+         */
+        TIMES;
+    }
+
+    /**
+     * How a node's value is attached to its parent.
+     */
+    public enum Attachment {
+        /**
+         * Not (yet) attached.
+         */
+        NONE,
+
+        /**
+         * {@code onto}.
+         */
+        ONTO,
+
+        /**
+         * {@code addTo}.
+         */
+        ADD_TO,
+
+        /**
+         * {@code into(...).at(...)}.
+         */
+        INTO,
+
+        /**
+         * {@link Blueprint.OfCollectionElement#add()}.
+         */
+        ADD,
+
+        /**
+         * {@link Blueprint.OfMapEntry#at(Object)}.
+         */
+        AT;
+    }
+
+    /**
+     * {@link PlanNode} visitor.
+     */
+    public interface Visitor {
+
+        /**
+         * Enter {@code node}.
+         *
+         * @param node visited
+         * @return whether to visit the children of {@code node}
+         */
+        default boolean enter(PlanNode node) {
+            return true;
+        }
+
+        /**
+         * Leave {@code node}, after its children have been visited.
+         *
+         * @param node visited
+         */
+        default void leave(PlanNode node) {
+        }
+    }
+
+    private final Kind kind;
+    private final String path;
+    private final BuildStrategy<?> buildStrategy;
+    private final ChildStrategy childStrategy;
+    private final List<PlanNode> children = new ArrayList<>();
+    private Attachment attachment = Attachment.NONE;
+    private ComponentStrategy<?, ?> componentStrategy;
+    private int iterations = -1;
+    private boolean compact;
+
+    PlanNode(Kind kind, String path, BuildStrategy<?> buildStrategy, ChildStrategy childStrategy) {
+        this.kind = kind;
+        this.path = path;
+        this.buildStrategy = buildStrategy;
+        this.childStrategy = childStrategy;
+    }
+
+    /**
+     * Get the node kind.
+     *
+     * @return {@link Kind}
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Get the node path, which locates a node by the ordinal of each blueprint
+     * along the way from its root, e.g. {@code /0/1}. Loop nodes share the path
+     * of the blueprint that hosts them.
+     *
+     * @return {@link String}
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Get the {@link BuildStrategy} of this node, if any.
+     *
+     * @return {@link BuildStrategy} or {@code null}
+     */
+    public BuildStrategy<?> getBuildStrategy() {
+        return buildStrategy;
+    }
+
+    /**
+     * Get the {@link ChildStrategy} in effect for this node, if any.
+     *
+     * @return {@link ChildStrategy} or {@code null}
+     */
+    public ChildStrategy getChildStrategy() {
+        return childStrategy;
+    }
+
+    /**
+     * Get the {@link Attachment} of this node to its parent.
+     *
+     * @return {@link Attachment}
+     */
+    public Attachment getAttachment() {
+        return attachment;
+    }
+
+    /**
+     * Get the {@link ComponentStrategy} used to obtain the component to which
+     * this node is attached, or which it mutates, if any.
+     *
+     * @return {@link ComponentStrategy} or {@code null}
+     */
+    public ComponentStrategy<?, ?> getComponentStrategy() {
+        return componentStrategy;
+    }
+
+    /**
+     * Get the number of iterations of a loop node.
+     *
+     * @return {@code int}, negative if unknown until build time
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Learn whether this is a compact loop node, which records its body once and
+     * evaluates it for each iteration as the blueprint is built.
+     *
+     * @return {@code boolean}
+     */
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * Get the child nodes.
+     *
+     * @return unmodifiable {@link List}
+     */
+    public List<PlanNode> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Visit this node and its descendants, depth-first.
+     *
+     * @param visitor {@link Visitor}
+     */
+    public void accept(Visitor visitor) {
+        if (visitor.enter(this)) {
+            for (PlanNode child : children) {
+                child.accept(visitor);
+            }
+        }
+        visitor.leave(this);
+    }
+
+    /**
+     * Describe the plan rooted at this node: its node count, depth and maximum
+     * fan-out, an estimate of the objects allocated per build (one per node that
+     * supplies a value, plus at most one per {@code ifNull} component strategy),
+     * and an outline of the nodes.
+     *
+     * @return {@link String}
+     */
+    public String explain() {
+        final StringBuilder outline = new StringBuilder();
+        final int[] stats = new int[6];
+
+        accept(new Visitor() {
+            int depth;
+
+            @Override
+            public boolean enter(PlanNode node) {
+                stats[0]++;
+                stats[1] = Math.max(stats[1], ++depth);
+                stats[2] = Math.max(stats[2], node.children.size());
+                if (node.suppliesValue()) {
+                    stats[3]++;
+                }
+                if (node.componentStrategy instanceof IfNull) {
+                    stats[4]++;
+                }
+                if (node.compact || node.iterations < 0 && node.kind == Kind.EACH) {
+                    stats[5]++;
+                }
+                for (int i = 1; i < depth; i++) {
+                    outline.append("  ");
+                }
+                node.describe(outline);
+                outline.append('\n');
+                return true;
+            }
+
+            @Override
+            public void leave(PlanNode node) {
+                depth--;
+            }
+        });
+        final StringBuilder result = new StringBuilder();
+        result.append("nodes: ").append(stats[0]).append(", depth: ").append(stats[1]).append(", max fan-out: ")
+                .append(stats[2]).append('\n');
+        result.append("estimated allocations per build: ").append(stats[3] + stats[4]).append(" (")
+                .append(stats[3]).append(" values, up to ").append(stats[4]).append(" components)");
+        if (stats[5] > 0) {
+            result.append(", excluding ").append(stats[5]).append(" loops evaluated per build");
+        }
+        return result.append('\n').append(outline).toString();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder();
+        describe(result);
+        return result.toString();
+    }
+
+    PlanNode add(Kind kind, String path, BuildStrategy<?> buildStrategy, ChildStrategy childStrategy) {
+        final PlanNode result = new PlanNode(kind, path, buildStrategy, childStrategy);
+        children.add(result);
+        return result;
+    }
+
+    PlanNode add(PlanNode node) {
+        children.add(node);
+        return node;
+    }
+
+    void attach(Attachment attachment, ComponentStrategy<?, ?> componentStrategy) {
+        this.attachment = attachment;
+        this.componentStrategy = componentStrategy;
+    }
+
+    void iterations(int iterations) {
+        this.iterations = iterations;
+    }
+
+    void compact() {
+        this.compact = true;
+    }
+
+    private boolean suppliesValue() {
+        if (buildStrategy == null) {
+            return false;
+        }
+        switch (kind) {
+        case ROOT:
+        case CHILD:
+        case ELEMENT:
+        case VALUE:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private void describe(StringBuilder buf) {
+        buf.append(path).append(' ').append(kind);
+        if (attachment != Attachment.NONE) {
+            buf.append(' ').append(attachment);
+        }
+        if (iterations >= 0) {
+            buf.append(" x").append(iterations);
+        }
+        if (compact) {
+            buf.append(" compact");
+        }
+        if (buildStrategy != null) {
+            buf.append(" [").append(buildStrategy.getClass().getSimpleName()).append(']');
+        }
+        if (componentStrategy instanceof IfNull) {
+            buf.append(" ifNull");
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Pooled {@link BuildStrategy}: a prototype whose instances are recycled via a
+ * bounded, lock-free pool. Instances of pooled child strategies built during
+ * {@link #lease()} are reset and returned to their own pools along with the
+ * root. A child strategy which records no mutations of its own, or whose value
+ * is obtained asynchronously, builds a value rather than a recyclable instance
+ * and is not pooled.
+ *
+ * @param <T> built type
+ */
+class PooledStrategy<T> extends PrototypeStrategy<T> implements BuildStrategy.Pooled<T> {
+
+    private static class LeaseImpl<T> implements Lease<T> {
+        final PooledStrategy<T> owner;
+        // pooled child strategy, instance pairs:
+        List<Object> subordinates;
+        T target;
+        boolean closed;
+
+        LeaseImpl(PooledStrategy<T> owner) {
+            this.owner = owner;
+        }
+
+        // children may be built on other threads, e.g. under a parallel strategy:
+        synchronized <U> void hold(PooledStrategy<U> strategy, U instance) {
+            if (subordinates == null) {
+                subordinates = new ArrayList<>(16);
+            }
+            subordinates.add(strategy);
+            subordinates.add(instance);
+        }
+
+        @Override
+        public T get() {
+            Validate.validState(!closed, "closed");
+            return target;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                owner.reset.accept(target);
+                owner.recycle(target);
+                target = null;
+                if (subordinates != null) {
+                    for (int i = 0, n = subordinates.size(); i < n; i += 2) {
+                        @SuppressWarnings("unchecked")
+                        final PooledStrategy<Object> strategy = (PooledStrategy<Object>) subordinates.get(i);
+                        final Object instance = subordinates.get(i + 1);
+                        strategy.reset.accept(instance);
+                        strategy.recycle(instance);
+                    }
+                    subordinates = null;
+                }
+            }
+        }
+    }
+
+    final int capacity;
+    final Consumer<? super T> reset;
+    private final AtomicReferenceArray<T> pool;
+    // identifies the ongoing lease of the root strategy in the BuildContext:
+    private final PooledStrategy<?> root;
+    // subordinate type, reset pairs, held by the root:
+    private final List<Object> resets;
+    // whether this strategy builds values rather than recyclable instances:
+    private boolean unpooled;
+
+    PooledStrategy(int capacity, Consumer<? super T> reset) {
+        this(capacity, reset, null);
+    }
+
+    private PooledStrategy(int capacity, Consumer<? super T> reset, PooledStrategy<?> root) {
+        Validate.isTrue(capacity > 0, "capacity must be positive");
+        this.capacity = capacity;
+        this.reset = Objects.requireNonNull(reset, "reset");
+        this.pool = new AtomicReferenceArray<>(capacity);
+        this.root = root == null ? this : root;
+        this.resets = root == null ? new ArrayList<>() : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T get() {
+        if (!isPooled()) {
+            return super.get();
+        }
+        final T result = mutate(obtain());
+        final LeaseImpl<?> lease = BuildContext.get(root, null);
+        if (lease != null) {
+            lease.hold(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Lease<T> lease() {
+        final LeaseImpl<T> result = new LeaseImpl<>(this);
+        final BuildContext enclosing = BuildContext.bind(root, result);
+        try {
+            result.target = mutate(obtain());
+        } finally {
+            BuildContext.restore(enclosing);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <U> Pooled<T> reset(Class<U> type, Consumer<? super U> reset) {
+        Validate.validState(root == this, "not a root strategy");
+        Validate.validState(!frozen, "compiled");
+        resets.add(Objects.requireNonNull(type, "type"));
+        resets.add(Objects.requireNonNull(reset, "reset"));
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    <U> BuildStrategy<U> newChild() {
+        return new PooledStrategy<>(capacity, root::resetSubordinate, root);
+    }
+
+    /**
+     * Mark this strategy as building values rather than recyclable instances,
+     * e.g. for an asynchronous child.
+     */
+    void unpool() {
+        unpooled = true;
+    }
+
+    // a child which records no mutations supplies a value, which must be obtained anew:
+    private boolean isPooled() {
+        return !unpooled && (root == this || steps() > 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resetSubordinate(Object instance) {
+        for (int i = 0, n = resets.size(); i < n; i += 2) {
+            if (((Class<?>) resets.get(i)).isInstance(instance)) {
+                ((Consumer<Object>) resets.get(i + 1)).accept(instance);
+            }
+        }
+    }
+
+    private T obtain() {
+        final int start = probe();
+        for (int i = 0; i < capacity; i++) {
+            final int slot = (start + i) % capacity;
+            final T t = pool.get(slot);
+            if (t != null && pool.compareAndSet(slot, t, null)) {
+                return t;
+            }
+        }
+        return create();
+    }
+
+    private void recycle(T t) {
+        final int start = probe();
+        for (int i = 0; i < capacity; i++) {
+            final int slot = (start + i) % capacity;
+            if (pool.get(slot) == null && pool.compareAndSet(slot, null, t)) {
+                return;
+            }
+        }
+        // pool full; leave t to the garbage collector
+    }
+
+    private int probe() {
+        return (int) (Thread.currentThread().getId() % capacity);
+    }
+}
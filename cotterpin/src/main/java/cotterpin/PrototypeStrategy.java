@@ -0,0 +1,202 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Prototype {@link BuildStrategy}: records mutations and replays them against
+ * a freshly-supplied target on each {@link #get()}. Mutations are held in a
+ * flat array which is trimmed and sealed by {@link #freeze()}.
+ *
+ * @param <T> built type
+ */
+class PrototypeStrategy<T> implements BuildStrategy<T> {
+    private static final Consumer<?>[] EMPTY = new Consumer<?>[0];
+
+    private final List<BuildStrategy<?>> children = new ArrayList<>();
+    private Consumer<? super T>[] steps = empty();
+    private int size;
+    boolean frozen;
+    private Supplier<?>[] async;
+    private Executor[] executors;
+    // identifies the values launched by the ongoing build in the BuildContext:
+    private Object pending;
+    Supplier<T> target;
+
+    @SuppressWarnings("unchecked")
+    private static <T> Consumer<? super T>[] empty() {
+        return (Consumer<? super T>[]) EMPTY;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initialize(Supplier<T> target) {
+        this.target = target;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void apply(Consumer<? super T> mutation) {
+        Validate.validState(!frozen, "compiled");
+        if (size == steps.length) {
+            steps = Arrays.copyOf(steps, Math.max(8, size << 1));
+        }
+        steps[size++] = mutation;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T get() {
+        return mutate(create());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <U> BuildStrategy<U> child() {
+        final BuildStrategy<U> result = newChild();
+        children.add(result);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void freeze() {
+        if (!frozen) {
+            steps = Arrays.copyOf(steps, size);
+            frozen = true;
+            children.forEach(BuildStrategy::freeze);
+        }
+    }
+
+    /**
+     * Learn the number of mutations recorded.
+     *
+     * @return {@code int}
+     */
+    int steps() {
+        return size;
+    }
+
+    /**
+     * Create a new, unmutated target instance.
+     *
+     * @return T
+     */
+    T create() {
+        final Supplier<T> s = target;
+        final T t = s == null ? null : s.get();
+        Validate.validState(t != null);
+        return t;
+    }
+
+    /**
+     * Create a child strategy for {@link #child()}.
+     *
+     * @param <U> child type
+     * @return {@link BuildStrategy}
+     */
+    <U> BuildStrategy<U> newChild() {
+        return new PrototypeStrategy<>();
+    }
+
+    /**
+     * Register the value of a subordinate node to be obtained asynchronously: the
+     * values so registered are launched together, in the context of the ongoing
+     * build, before the recorded mutations are applied; any not yet started when
+     * a mutation fails are cancelled.
+     *
+     * @param <V>      value type
+     * @param value    {@link Supplier}
+     * @param executor {@link Executor}
+     * @return {@link Supplier} of the value launched for the ongoing build
+     */
+    @SuppressWarnings("unchecked")
+    <V> Supplier<V> async(Supplier<V> value, Executor executor) {
+        Validate.validState(!frozen, "compiled");
+        final int index;
+        if (async == null) {
+            index = 0;
+            async = new Supplier<?>[] { value };
+            executors = new Executor[] { executor };
+            pending = new Object();
+        } else {
+            index = async.length;
+            async = Arrays.copyOf(async, index + 1);
+            async[index] = value;
+            executors = Arrays.copyOf(executors, index + 1);
+            executors[index] = executor;
+        }
+        final Object p = pending;
+        return () -> {
+            final CompletableFuture<?>[] launched = BuildContext.get(p, null);
+            return launched == null ? value.get() : Async.join((CompletableFuture<V>) launched[index]);
+        };
+    }
+
+    /**
+     * Apply recorded mutations to {@code t}.
+     *
+     * @param t target
+     * @return {@code t}
+     */
+    T mutate(T t) {
+        final Supplier<?>[] a = async;
+        if (a == null) {
+            return execute(t);
+        }
+        final CompletableFuture<?>[] launched = new CompletableFuture<?>[a.length];
+        for (int i = 0; i < a.length; i++) {
+            launched[i] = CompletableFuture.supplyAsync(BuildContext.propagate(a[i]), executors[i]);
+        }
+        final BuildContext enclosing = BuildContext.bind(pending, launched);
+        try {
+            return execute(t);
+        } finally {
+            BuildContext.restore(enclosing);
+            // values not awaited because a step failed:
+            for (CompletableFuture<?> f : launched) {
+                f.cancel(false);
+            }
+        }
+    }
+
+    private T execute(T t) {
+        final Consumer<? super T>[] s = steps;
+        for (int i = 0, n = size; i < n; i++) {
+            s[i].accept(t);
+        }
+        return t;
+    }
+}
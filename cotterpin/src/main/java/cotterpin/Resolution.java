@@ -0,0 +1,160 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.mutable.MutableInt;
+
+/**
+ * Shared resolution of a parent component, i.e. an accessor as decorated by
+ * its {@link ComponentStrategy}, used by sibling steps. Within a {@link Run}
+ * of strictly adjacent steps the first step to use the component resolves it
+ * and subsequent steps of the same run reuse the result, held by a
+ * {@link Component} local to that application of the run. Because no other
+ * step can intervene, the component cannot be replaced on its parent in the
+ * meantime. A {@link Resolution} itself holds no per-build state, so a single
+ * instance serves concurrent builds.
+ *
+ * @param <P> parent type
+ * @param <C> component type
+ */
+class Resolution<P, C> implements Function<P, C> {
+    private static final Object PENDING = new Object();
+
+    /**
+     * Component of a single parent, resolved upon first use.
+     */
+    class Component {
+        final P parent;
+        private Object component = PENDING;
+
+        Component(P parent) {
+            this.parent = parent;
+        }
+
+        @SuppressWarnings("unchecked")
+        C get() {
+            if (component != PENDING) {
+                return (C) component;
+            }
+            final C result = resolve.apply(parent);
+            if (result != null) {
+                component = result;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Step applying consecutive sibling steps that share a {@link Resolution}
+     * to a {@link Component} of the parent. A {@code null} parent is presented
+     * as a {@code null} {@link Component}.
+     */
+    class Run implements Consumer<P> {
+        private Consumer<Component>[] steps;
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        Run(Consumer<Component> step) {
+            steps = new Consumer[] { step };
+            size = 1;
+        }
+
+        /**
+         * Get the owning {@link Resolution}.
+         *
+         * @return {@link Resolution}
+         */
+        Resolution<P, C> resolution() {
+            return Resolution.this;
+        }
+
+        /**
+         * Add a step immediately following those already present.
+         *
+         * @param step {@link Consumer}
+         */
+        void add(Consumer<Component> step) {
+            if (size == steps.length) {
+                steps = Arrays.copyOf(steps, size << 1);
+            }
+            steps[size++] = step;
+        }
+
+        @Override
+        public void accept(P p) {
+            final Component c = p == null ? null : new Component(p);
+            final int n = size;
+            for (int i = 0; i < n; i++) {
+                steps[i].accept(c);
+            }
+        }
+    }
+
+    private final Function<P, C> resolve;
+    private final MutableInt attachments;
+
+    /**
+     * Create a new {@link Resolution} instance.
+     *
+     * @param accessor    {@link Function}
+     * @param strategy    {@link ComponentStrategy}
+     * @param attachments count of elements attached to the component
+     */
+    Resolution(Function<P, C> accessor, ComponentStrategy<P, C> strategy, MutableInt attachments) {
+        this.attachments = attachments;
+        this.resolve = strategy instanceof IfNull ? ((IfNull<P, C>) strategy).apply(accessor, attachments::intValue)
+                : strategy.apply(accessor);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public C apply(P parent) {
+        return resolve.apply(parent);
+    }
+
+    /**
+     * Get the accessor used by the steps of a {@link Run}.
+     *
+     * @return {@link Function}
+     */
+    Function<Component, C> component() {
+        return c -> c == null ? resolve.apply(null) : c.get();
+    }
+
+    /**
+     * Count an element to be attached to the resolved component, e.g. for
+     * {@link Sized} creation.
+     */
+    void attach() {
+        attachments.increment();
+    }
+
+    /**
+     * Create a {@link Run} beginning with {@code step}.
+     *
+     * @param step {@link Consumer}
+     * @return {@link Run}
+     */
+    Run run(Consumer<Component> step) {
+        return new Run(step);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.util.Objects;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Capacity-aware {@link Supplier} of a collection or map. Where a
+ * {@link Sized} instance is used as the value of a
+ * {@link Cotterpin#buildCollection(Supplier) collection} or
+ * {@link Cotterpin#buildMap(Supplier) map} root, or as the {@code create}
+ * function of {@link ComponentStrategy#ifNull(java.util.function.BiConsumer, Supplier)},
+ * it is invoked with the number of elements the blueprint will attach. Note that
+ * this is an element count rather than a capacity: e.g. a {@link java.util.HashMap}
+ * should be created with {@code n -> new HashMap<>((int) (n / 0.75f) + 1)}.
+ * The elements of an {@code ifNull} component are counted by its accessor and
+ * recorder, so that a {@link Sized} instance created anew by each iteration
+ * of a loop still receives the full count.
+ * <p>
+ * The count is complete only where the steps of the blueprint are deferred to
+ * build time, as by {@link BuildStrategy#prototype()} and the strategies based
+ * upon it. {@link BuildStrategy#singleton()} applies each step as it is
+ * specified, so that it creates a root before any element is counted, i.e.
+ * with {@code 0}, and an {@code ifNull} component upon its first element,
+ * i.e. with {@code 1}; such instances simply grow as usual.
+ *
+ * @param <T> supplied type
+ */
+@FunctionalInterface
+public interface Sized<T> extends Supplier<T> {
+
+    /**
+     * Create a {@link Sized} instance from {@code create}.
+     *
+     * @param <T>    supplied type
+     * @param create {@link IntFunction}
+     * @return {@link Sized}
+     */
+    public static <T> Sized<T> sized(IntFunction<? extends T> create) {
+        Objects.requireNonNull(create);
+        return create::apply;
+    }
+
+    /**
+     * Get an instance for the specified number of elements.
+     *
+     * @param size expected number of elements
+     * @return T
+     */
+    T get(int size);
+
+    /**
+     * Get an instance with no expected elements.
+     *
+     * @return T
+     */
+    @Override
+    default T get() {
+        return get(0);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Template {@link BuildStrategy}: a prototype whose recorded plan is executed
+ * once, upon the first {@link #get()}, to produce a template from which each
+ * build is copied.
+ *
+ * @param <T> built type
+ */
+class TemplateStrategy<T> extends PrototypeStrategy<T> {
+
+    private final UnaryOperator<T> copier;
+    private volatile T template;
+
+    TemplateStrategy(UnaryOperator<T> copier) {
+        this.copier = Objects.requireNonNull(copier, "copier");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T get() {
+        T t = template;
+        if (t == null) {
+            synchronized (this) {
+                t = template;
+                if (t == null) {
+                    template = t = super.get();
+                }
+            }
+        }
+        final T result = copier.apply(t);
+        Validate.validState(result != null && result != t, "copier must return a new instance");
+        return result;
+    }
+}
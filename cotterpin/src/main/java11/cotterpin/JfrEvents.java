@@ -0,0 +1,163 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * {@link Events} that emits Java Flight Recorder events. Each hook first asks
+ * whether its event type is enabled, so the cost outside of a recording (or
+ * below threshold) is that of a constructor call the JIT can elide and a
+ * branch. Attachments fused into a bulk step are recorded as a single step of
+ * kind {@code addAll} or {@code putAll} at the path of their parent, so that a
+ * recording does not change how a blueprint builds.
+ */
+class JfrEvents extends Events {
+
+    @Name("cotterpin.Build")
+    @Label("Blueprint Build")
+    @Description("Build of a root blueprint")
+    @Category("Cotterpin")
+    @Threshold("20 ms")
+    static class BuildEvent extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Type")
+        Class<?> type;
+    }
+
+    @Name("cotterpin.Step")
+    @Label("Blueprint Step")
+    @Description("Execution of a recorded blueprint step, including the build of any value it attaches")
+    @Category("Cotterpin")
+    @Threshold("20 ms")
+    static class StepEvent extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Kind")
+        String kind;
+
+        @Label("Parent Type")
+        Class<?> parentType;
+
+        @Label("Value Type")
+        Class<?> valueType;
+    }
+
+    @Name("cotterpin.ComponentCreation")
+    @Label("Component Creation")
+    @Description("Creation of a missing component by ComponentStrategy.ifNull")
+    @Category("Cotterpin")
+    @Threshold("20 ms")
+    static class ComponentEvent extends Event {
+        @Label("Parent Type")
+        Class<?> parentType;
+
+        @Label("Component Type")
+        Class<?> componentType;
+    }
+
+    @Override
+    <T> T build(String path, Supplier<T> build) {
+        final BuildEvent event = new BuildEvent();
+        if (!event.isEnabled()) {
+            return build.get();
+        }
+        event.begin();
+        final T result = build.get();
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.type = typeOf(result);
+            event.commit();
+        }
+        return result;
+    }
+
+    @Override
+    <P, T> Consumer<P> step(String path, String kind, Supplier<? extends T> value, BiConsumer<P, T> cmer) {
+        return p -> {
+            final StepEvent event = new StepEvent();
+            if (!event.isEnabled()) {
+                cmer.accept(p, value.get());
+                return;
+            }
+            event.begin();
+            final T t = value.get();
+            cmer.accept(p, t);
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = path;
+                event.kind = kind;
+                event.parentType = typeOf(p);
+                event.valueType = typeOf(t);
+                event.commit();
+            }
+        };
+    }
+
+    @Override
+    <P> Consumer<P> step(String path, String kind, Consumer<P> step) {
+        return p -> {
+            final StepEvent event = new StepEvent();
+            if (!event.isEnabled()) {
+                step.accept(p);
+                return;
+            }
+            event.begin();
+            step.accept(p);
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = path;
+                event.kind = kind;
+                event.parentType = typeOf(p);
+                event.commit();
+            }
+        };
+    }
+
+    @Override
+    <T> T component(Object parent, Supplier<? extends T> create) {
+        final ComponentEvent event = new ComponentEvent();
+        if (!event.isEnabled()) {
+            return create.get();
+        }
+        event.begin();
+        final T result = create.get();
+        event.end();
+        if (event.shouldCommit()) {
+            event.parentType = typeOf(parent);
+            event.componentType = typeOf(result);
+            event.commit();
+        }
+        return result;
+    }
+
+    private static Class<?> typeOf(Object o) {
+        return o == null ? null : o.getClass();
+    }
+}
@@ -0,0 +1,1507 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import static cotterpin.BuildStrategy.prototype;
+import static cotterpin.BuildStrategy.singleton;
+import static cotterpin.ComponentStrategy.ifNull;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.lang3.reflect.TypeLiteral;
+import org.apache.commons.lang3.tuple.Pair;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import acme.Character;
+import acme.CharacterType;
+import acme.Franchise;
+import acme.Franchise.Info;
+
+public class CotterpinTest {
+
+    @Test
+    public void testImplicitSingleton() {
+        Supplier<Franchise> s = Cotterpin.build(Franchise::new);
+        Franchise franchise = s.get();
+        assertThat(franchise).isNotNull();
+        assertThat(s.get()).isNotNull().isSameAs(franchise);
+    }
+
+    @Test
+    public void testExplicitSingleton() {
+        Supplier<Franchise> s = Cotterpin.build(singleton(), Franchise::new);
+        Franchise franchise = s.get();
+        assertThat(franchise).isNotNull();
+        assertThat(s.get()).isNotNull().isSameAs(franchise);
+    }
+
+    @Test
+    public void testPrototype() {
+        Supplier<Franchise> s = Cotterpin.build(prototype(), Franchise::new);
+        Franchise franchise = s.get();
+        assertThat(franchise).isNotNull();
+        assertThat(s.get()).isNotNull().isNotSameAs(franchise);
+    }
+
+    @Test
+    public void testCompiledPrototype() {
+        // @formatter:off
+        Blueprint.Root<Franchise, ?> blueprint = Cotterpin.build(prototype(), Franchise::new)
+            .child("Evil Dead").onto(Franchise::setName)
+            .mutate(Franchise.Info.class)
+                .child(Year.of(1981)).onto(Franchise.Info::setOriginated)
+            .onto(Franchise::getInfo)
+            .child(Character::new)
+                .child(CharacterType.UNDEAD).onto(Character::setType)
+            .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Henrietta")
+            .compile();
+        // @formatter:on
+        Franchise franchise = blueprint.get();
+        assertThat(blueprint.get()).isNotSameAs(franchise).satisfies(f -> {
+            assertThat(f.getName()).isEqualTo("Evil Dead");
+            assertThat(f.getInfo().getOriginated()).isEqualTo(Year.of(1981));
+            assertThat(f.getCharacters()).hasEntrySatisfying("Henrietta",
+                    c -> assertThat(c.getType()).isSameAs(CharacterType.UNDEAD));
+        });
+        assertThatThrownBy(() -> blueprint.child("Army of Darkness").onto(Franchise::setName))
+                .isInstanceOf(IllegalStateException.class);
+
+        final Blueprint.Root<Franchise, ?> original = Cotterpin.build(prototype(), Franchise::new)
+                .child("Evil Dead").onto(Franchise::setName);
+        final Blueprint.Root<Integer, ?> length = original.map(Franchise::getName).map(String::length).compile();
+        assertThat(length.get()).isEqualTo(9);
+        assertThatThrownBy(() -> original.child("Army of Darkness").onto(Franchise::setName))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testConcurrentPrototype() throws Exception {
+        // @formatter:off
+        final Supplier<Franchise> blueprint = Cotterpin.build(prototype(), Franchise::new)
+            .child("Evil Dead").onto(Franchise::setName)
+            .mutate(Franchise.Info.class)
+                .child(Year.of(1981)).onto(Franchise.Info::setOriginated)
+            .onto(Franchise::getInfo)
+            .child(Character::new)
+                .child(CharacterType.UNDEAD).onto(Character::setType)
+                .child("Book").addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, LinkedHashSet<String>::new))
+                .child("Chainsaw").addTo(Character::getWeaknesses)
+            .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Henrietta")
+            .compile();
+        // @formatter:on
+        final int threads = 8;
+        final int builds = 2000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CyclicBarrier start = new CyclicBarrier(threads);
+            final List<Future<List<Franchise>>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    final List<Franchise> built = new ArrayList<>(builds);
+                    for (int j = 0; j < builds; j++) {
+                        built.add(blueprint.get());
+                    }
+                    return built;
+                }));
+            }
+            final Set<Franchise> all = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Future<List<Franchise>> result : results) {
+                for (Franchise f : result.get(30, TimeUnit.SECONDS)) {
+                    assertThat(all.add(f)).isTrue();
+                    assertThat(f.getName()).isEqualTo("Evil Dead");
+                    assertThat(f.getInfo().getOriginated()).isEqualTo(Year.of(1981));
+                    assertThat(f.getCharacters()).hasSize(1).hasEntrySatisfying("Henrietta", c -> {
+                        assertThat(c.getType()).isSameAs(CharacterType.UNDEAD);
+                        assertThat(c.getWeaknesses()).containsExactly("Book", "Chainsaw");
+                    });
+                }
+            }
+            assertThat(all).hasSize(threads * builds);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGetMany() {
+        Blueprint.Root<Franchise, ?> blueprint = Cotterpin.build(prototype(), Franchise::new).child("Scream")
+                .onto(Franchise::setName);
+        assertThat(blueprint.getMany(3)).hasSize(3).doesNotHaveDuplicates()
+                .allSatisfy(f -> assertThat(f.getName()).isEqualTo("Scream"));
+        assertThat(blueprint.getMany(0)).isEmpty();
+        assertThatThrownBy(() -> blueprint.getMany(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testParallelStream() {
+        // @formatter:off
+        Blueprint.OfMap<String, Character, TreeMap<String, Character>, ?> blueprint =
+            Cotterpin.buildMap(prototype(), () -> new TreeMap<String, Character>())
+                .value(Character::new)
+                    .child(CharacterType.SLASHER).onto(Character::setType)
+                .at("Ghostface");
+        // @formatter:on
+        assertThat(blueprint.stream(1000).spliterator().hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED))
+                .isTrue();
+
+        final Set<TreeMap<String, Character>> all = blueprint.stream(1000).parallel()
+                .collect(Collectors.toCollection(() -> Collections.newSetFromMap(new IdentityHashMap<>())));
+        assertThat(all).hasSize(1000).allSatisfy(m -> assertThat(m).hasEntrySatisfying("Ghostface",
+                c -> assertThat(c.getType()).isSameAs(CharacterType.SLASHER)));
+    }
+
+    @Test
+    public void testPooled() {
+        final BuildStrategy.Pooled<Franchise> pool = BuildStrategy.pooled(4, f -> f.getCharacters().clear());
+        // @formatter:off
+        Cotterpin.build(pool, Franchise::new)
+            .child("Halloween").onto(Franchise::setName)
+            .child(Character::new)
+                .child(CharacterType.SLASHER).onto(Character::setType)
+            .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Michael Myers");
+        // @formatter:on
+        final Franchise franchise;
+        final Character character;
+        try (BuildStrategy.Pooled.Lease<Franchise> lease = pool.lease()) {
+            franchise = lease.get();
+            character = franchise.getCharacters().get("Michael Myers");
+            assertThat(character.getType()).isSameAs(CharacterType.SLASHER);
+        }
+        assertThat(franchise.getCharacters()).isEmpty();
+
+        try (BuildStrategy.Pooled.Lease<Franchise> lease = pool.lease()) {
+            assertThat(lease.get()).isSameAs(franchise);
+            assertThat(lease.get().getName()).isEqualTo("Halloween");
+            assertThat(lease.get().getCharacters()).hasSize(1).containsEntry("Michael Myers", character);
+
+            try (BuildStrategy.Pooled.Lease<Franchise> concurrent = pool.lease()) {
+                assertThat(concurrent.get()).isNotSameAs(franchise).satisfies(
+                        f -> assertThat(f.getCharacters().get("Michael Myers")).isNotSameAs(character));
+            }
+        }
+        final BuildStrategy.Pooled.Lease<Franchise> lease = pool.lease();
+        lease.close();
+        assertThatThrownBy(lease::get).isInstanceOf(IllegalStateException.class);
+
+        // an unrelated pooled blueprint used during a lease keeps its instance:
+        final Supplier<Character> unrelated = Cotterpin.build(BuildStrategy.<Character> pooled(4, c -> {
+        }), Character::new).child(CharacterType.GHOST).onto(Character::setType);
+        final AtomicReference<Character> held = new AtomicReference<>();
+        final BuildStrategy.Pooled<Franchise> other = BuildStrategy.pooled(4, f -> {
+        });
+        Cotterpin.build(other, Franchise::new).then(f -> held.set(unrelated.get()));
+        other.lease().close();
+        assertThat(unrelated.get()).isNotSameAs(held.get());
+
+        // subordinate values are obtained anew for every lease; subordinate instances are reset and recycled:
+        final AtomicInteger ids = new AtomicInteger();
+        final BuildStrategy.Pooled<Franchise> numbered = BuildStrategy.<Franchise> pooled(4, f -> f.setName(null))
+                .reset(Character.class, c -> c.setType(null));
+        // @formatter:off
+        Cotterpin.build(numbered, Franchise::new)
+            .child(() -> "id-" + ids.incrementAndGet()).onto(Franchise::setName)
+            .child(Character::new)
+                .child(CharacterType.GHOST).onto(Character::setType)
+            .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Ghost");
+        // @formatter:on
+        final Character ghost;
+        try (BuildStrategy.Pooled.Lease<Franchise> first = numbered.lease()) {
+            assertThat(first.get().getName()).isEqualTo("id-1");
+            ghost = first.get().getCharacters().get("Ghost");
+        }
+        assertThat(ghost.getType()).isNull();
+        try (BuildStrategy.Pooled.Lease<Franchise> second = numbered.lease()) {
+            assertThat(second.get().getName()).isEqualTo("id-2");
+            assertThat(second.get().getCharacters().get("Ghost")).isSameAs(ghost)
+                    .satisfies(c -> assertThat(c.getType()).isSameAs(CharacterType.GHOST));
+        }
+    }
+
+    @Test
+    public void testPerThread() throws Exception {
+        final BuildStrategy.PerThread<Franchise> strategy = BuildStrategy.perThread();
+        // @formatter:off
+        final Supplier<Franchise> blueprint = Cotterpin.build(strategy, Franchise::new)
+            .child("Child's Play").onto(Franchise::setName)
+            .child(Character::new)
+                .child(CharacterType.GOLEM).onto(Character::setType)
+            .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Chucky")
+            .compile();
+        // @formatter:on
+        final Franchise franchise = blueprint.get();
+        assertThat(franchise.getName()).isEqualTo("Child's Play");
+        assertThat(franchise.getCharacters()).hasEntrySatisfying("Chucky",
+                c -> assertThat(c.getType()).isSameAs(CharacterType.GOLEM));
+        assertThat(blueprint.get()).isSameAs(franchise);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Franchise other = executor.submit(blueprint::get).get(30, TimeUnit.SECONDS);
+            assertThat(other).isNotSameAs(franchise);
+            assertThat(other.getCharacters().get("Chucky")).isNotSameAs(franchise.getCharacters().get("Chucky"));
+            assertThat(executor.submit(blueprint::get).get(30, TimeUnit.SECONDS)).isSameAs(other);
+        } finally {
+            executor.shutdownNow();
+        }
+        strategy.clear();
+        assertThat(blueprint.get()).isNotSameAs(franchise)
+                .satisfies(f -> assertThat(f.getName()).isEqualTo("Child's Play"));
+    }
+
+    @Test
+    public void testCached() {
+        final AtomicLong clock = new AtomicLong();
+        final AtomicReference<String> tenant = new AtomicReference<>("a");
+        final CachedStrategy<Franchise> strategy = new CachedStrategy<>(Duration.ofNanos(100), 2, tenant::get,
+                clock::get);
+        final Supplier<Franchise> blueprint = Cotterpin.build(strategy, Franchise::new)
+                .child(tenant::get).onto(Franchise::setName).compile();
+
+        final Franchise a = blueprint.get();
+        assertThat(a.getName()).isEqualTo("a");
+        assertThat(blueprint.get()).isSameAs(a);
+
+        tenant.set("b");
+        final Franchise b = blueprint.get();
+        assertThat(b).isNotSameAs(a);
+        assertThat(b.getName()).isEqualTo("b");
+
+        tenant.set("a");
+        assertThat(blueprint.get()).isSameAs(a);
+        assertThat(strategy.hits()).isEqualTo(2);
+        assertThat(strategy.misses()).isEqualTo(2);
+
+        // evict least recently used "b":
+        tenant.set("c");
+        blueprint.get();
+        assertThat(strategy.evictions()).isEqualTo(1);
+        tenant.set("b");
+        assertThat(blueprint.get()).isNotSameAs(b);
+        assertThat(strategy.evictions()).isEqualTo(2);
+
+        clock.addAndGet(100);
+        tenant.set("b");
+        final Franchise expired = blueprint.get();
+        assertThat(expired.getName()).isEqualTo("b");
+        assertThat(strategy.misses()).isEqualTo(5);
+        assertThat(strategy.evictions()).isEqualTo(3);
+
+        strategy.invalidate();
+        assertThat(blueprint.get()).isNotSameAs(expired);
+        assertThat(strategy.misses()).isEqualTo(6);
+
+        assertThatThrownBy(() -> BuildStrategy.cached(Duration.ZERO)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BuildStrategy.cached(Duration.ofMinutes(1), 0, () -> null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testTemplate() {
+        final AtomicInteger replays = new AtomicInteger();
+        // @formatter:off
+        final Supplier<Franchise> blueprint = Cotterpin.build(BuildStrategy.<Franchise> template(f -> {
+                final Franchise copy = new Franchise();
+                copy.setName(f.getName());
+                copy.setCharacters(new TreeMap<>());
+                f.getCharacters().forEach((k, v) -> {
+                    final Character c = new Character();
+                    c.setType(v.getType());
+                    copy.getCharacters().put(k, c);
+                });
+                return copy;
+            }), Franchise::new)
+            .then(f -> replays.incrementAndGet())
+            .child("Candyman").onto(Franchise::setName)
+            .child(Character::new)
+                .child(CharacterType.GHOST).onto(Character::setType)
+            .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Daniel Robitaille")
+            .compile();
+        // @formatter:on
+        final Franchise franchise = blueprint.get();
+        assertThat(franchise.getName()).isEqualTo("Candyman");
+        assertThat(franchise.getCharacters()).hasEntrySatisfying("Daniel Robitaille",
+                c -> assertThat(c.getType()).isSameAs(CharacterType.GHOST));
+        final Franchise copy = blueprint.get();
+        assertThat(copy).isNotSameAs(franchise).usingRecursiveComparison().isEqualTo(franchise);
+        assertThat(copy.getCharacters()).isNotSameAs(franchise.getCharacters());
+        assertThat(copy.getCharacters().get("Daniel Robitaille"))
+                .isNotSameAs(franchise.getCharacters().get("Daniel Robitaille"));
+        assertThat(replays).hasValue(1);
+
+        assertThatThrownBy(Cotterpin.build(BuildStrategy.<Franchise> template(f -> f), Franchise::new)::get)
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final CyclicBarrier together = new CyclicBarrier(2);
+            final AtomicInteger arrivals = new AtomicInteger();
+            final Supplier<Character> character = () -> {
+                if (arrivals.getAndIncrement() < 2) {
+                    try {
+                        // the first two characters can only be built concurrently:
+                        together.await(10, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return new Character();
+            };
+            // @formatter:off
+            final Supplier<Franchise> blueprint = Cotterpin.build(BuildStrategy.parallel(pool, 1), Franchise::new)
+                .child("Evil Dead").onto(Franchise::setName)
+                .mutate(Franchise.Info.class)
+                    .child(Year.of(1981)).onto(Franchise.Info::setOriginated)
+                .onto(Franchise::getInfo)
+                .times(8, (f, i) -> f
+                    .child(character)
+                        .child(CharacterType.UNDEAD).onto(Character::setType)
+                        .times(3, (c, j) -> c
+                            .child("Weakness " + i + j).addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, LinkedHashSet<String>::new)))
+                    .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, LinkedHashMap::new)).at("Deadite " + i));
+            // @formatter:on
+
+            final Franchise f = blueprint.get();
+            assertThat(f.getName()).isEqualTo("Evil Dead");
+            assertThat(f.getInfo().getOriginated()).isEqualTo(Year.of(1981));
+            assertThat(f.getCharacters().keySet()).containsExactly("Deadite 0", "Deadite 1", "Deadite 2",
+                    "Deadite 3", "Deadite 4", "Deadite 5", "Deadite 6", "Deadite 7");
+            assertThat(f.getCharacters().get("Deadite 5").getWeaknesses()).containsExactly("Weakness 50",
+                    "Weakness 51", "Weakness 52");
+
+            // @formatter:off
+            final Blueprint.Parameterized<String, Character, ?> named =
+                Cotterpin.parameterized(BuildStrategy.parallel(pool, 1), (String s) -> new Character());
+            named
+                .times(4, (c, i) -> c
+                    .child(named.input(s -> s + i)).addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, LinkedHashSet<String>::new)))
+                .compile();
+            // @formatter:on
+            assertThat(named.apply("Book").getWeaknesses()).containsExactly("Book0", "Book1", "Book2", "Book3");
+
+            final IllegalArgumentException failure = new IllegalArgumentException();
+            final Supplier<String> unnamed = () -> {
+                throw failure;
+            };
+            // @formatter:off
+            final Supplier<Franchise> failing = Cotterpin.build(BuildStrategy.parallel(pool, 1), Franchise::new)
+                .child("Evil Dead").onto(Franchise::setName)
+                .child(unnamed).onto(Franchise::setName);
+            // @formatter:on
+            assertThatThrownBy(failing::get).isSameAs(failure);
+            // @formatter:off
+            final Supplier<ConcurrentHashMap<Integer, String>> failingLoop =
+                Cotterpin.buildMap(BuildStrategy.parallel(pool, 1), ConcurrentHashMap<Integer, String>::new)
+                    .parallel().attachTimes(100, i -> i == 50 ? unnamed.get() : "Deadite" + i, (m, v) -> m.put(v.length(), v));
+            // @formatter:on
+            assertThatThrownBy(failingLoop::get).isSameAs(failure);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelLoops() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final CyclicBarrier together = new CyclicBarrier(2);
+            final AtomicInteger arrivals = new AtomicInteger();
+            final Function<Integer, String> name = i -> {
+                if (arrivals.getAndIncrement() < 2) {
+                    try {
+                        // the first two names can only be obtained concurrently:
+                        together.await(10, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return "Deadite " + i;
+            };
+            final List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < 10000; i++) {
+                ids.add(i);
+            }
+            // @formatter:off
+            final Blueprint.OfMap<Integer, String, ConcurrentHashMap<Integer, String>, ?> map =
+                Cotterpin.buildMap(BuildStrategy.parallel(pool, 1), () -> new ConcurrentHashMap<Integer, String>())
+                    .parallel().attachTimes(10000, i -> i, (m, i) -> m.put(i, name.apply(i)));
+            final Blueprint.OfCollection<String, ConcurrentLinkedQueue<String>, ?> queue =
+                Cotterpin.buildCollection(BuildStrategy.parallel(pool, 1), () -> new ConcurrentLinkedQueue<String>())
+                    .parallel().attachEach(ids, name, Collection::add);
+            // @formatter:on
+
+            assertThat(map.get()).hasSize(10000).containsEntry(9999, "Deadite 9999");
+            arrivals.set(0);
+            assertThat(queue.get()).hasSize(10000).contains("Deadite 0", "Deadite 9999");
+
+            // without opting in, attached in order on the building thread:
+            final Thread builder = Thread.currentThread();
+            assertThat(Cotterpin.buildCollection(BuildStrategy.parallel(pool, 1), () -> new ArrayList<Integer>())
+                    .attachEach(ids, i -> i, (l, i) -> l.add(Thread.currentThread() == builder ? i : -1)).get())
+                            .isEqualTo(ids);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testAsync() {
+        final CountDownLatch started = new CountDownLatch(10);
+        final Supplier<Character> slow = () -> {
+            started.countDown();
+            try {
+                // completes only once all ten lookups are underway:
+                assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return new Character();
+        };
+        // @formatter:off
+        final Supplier<Franchise> blueprint = Cotterpin.build(prototype(), Franchise::new)
+            .child(CompletableFuture.completedFuture("Evil Dead")).onto(Franchise::setName)
+            .times(10, (f, i) -> f
+                .childAsync(slow)
+                    .child(CharacterType.UNDEAD).onto(Character::setType)
+                .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Deadite " + i));
+        // @formatter:on
+
+        final Franchise f = blueprint.get();
+        assertThat(f.getName()).isEqualTo("Evil Dead");
+        assertThat(f.getCharacters()).hasSize(10)
+                .allSatisfy((k, c) -> assertThat(c.getType()).isSameAs(CharacterType.UNDEAD));
+
+        final IllegalArgumentException failure = new IllegalArgumentException();
+        final Supplier<String> failing = () -> {
+            throw failure;
+        };
+        assertThatThrownBy(Cotterpin.build(prototype(), Franchise::new).childAsync(failing, Runnable::run)
+                .onto(Franchise::setName)::get).isSameAs(failure);
+
+        final Blueprint.Parameterized<String, Franchise, ?> named =
+                Cotterpin.parameterized((String name) -> new Franchise());
+        named.childAsync(named.input()).onto(Franchise::setName).compile();
+        assertThat(named.apply("Hellraiser").getName()).isEqualTo("Hellraiser");
+
+        final List<Runnable> queued = new ArrayList<>();
+        final AtomicInteger built = new AtomicInteger();
+        // @formatter:off
+        final Supplier<Franchise> failFirst = Cotterpin.build(prototype(), Franchise::new)
+            .then(x -> {
+                throw failure;
+            })
+            .childAsync(() -> "Phantasm" + built.incrementAndGet(), queued::add).onto(Franchise::setName);
+        // @formatter:on
+        assertThatThrownBy(failFirst::get).isSameAs(failure);
+        assertThat(queued).hasSize(1);
+        queued.forEach(Runnable::run);
+        assertThat(built).hasValue(0);
+    }
+
+    @Test
+    public void testMetered() throws Exception {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = MeteredStrategy.objectName("franchise");
+        final AtomicReference<String> title = new AtomicReference<>("Saw");
+
+        try (BuildStrategy.Metered<Franchise> strategy = BuildStrategy.metered("franchise", prototype())) {
+            final Supplier<Franchise> blueprint = Cotterpin.build(strategy, Franchise::new)
+                    .child(() -> Objects.requireNonNull(title.get())).onto(Franchise::setName).compile();
+            assertThat(blueprint.get().getName()).isEqualTo("Saw");
+            assertThat(blueprint.get()).isNotNull();
+            title.set(null);
+            assertThatThrownBy(blueprint::get).isInstanceOf(NullPointerException.class);
+
+            assertThat(server.getAttribute(name, "Builds")).isEqualTo(2L);
+            assertThat(server.getAttribute(name, "Failures")).isEqualTo(1L);
+            assertThat(strategy.metrics().getLatencyHistogram()).hasSize(63)
+                    .satisfies(h -> assertThat(Arrays.stream(h).sum()).isEqualTo(2));
+            assertThat(strategy.metrics().getTotalNanos()).isPositive();
+
+            assertThatThrownBy(() -> BuildStrategy.metered("franchise", prototype()))
+                    .isInstanceOf(IllegalStateException.class);
+
+            server.setAttribute(name, new Attribute("Enabled", false));
+            title.set("Saw II");
+            assertThat(blueprint.get().getName()).isEqualTo("Saw II");
+            assertThat(strategy.metrics().getBuilds()).isEqualTo(2);
+
+            server.invoke(name, "reset", null, null);
+            assertThat(strategy.metrics().getFailures()).isZero();
+        }
+        assertThat(server.isRegistered(name)).isFalse();
+    }
+
+    @Test
+    public void testMeteredBuildsAsDelegate() {
+        final CountDownLatch started = new CountDownLatch(3);
+        final Supplier<Character> slow = () -> {
+            started.countDown();
+            try {
+                // completes only once all three lookups are underway:
+                assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return new Character();
+        };
+        try (BuildStrategy.Metered<Franchise> strategy = BuildStrategy.metered("async", prototype())) {
+            // @formatter:off
+            final Supplier<Franchise> blueprint = Cotterpin.build(strategy, Franchise::new)
+                .times(3, (f, i) -> f
+                    .childAsync(slow)
+                        .child(CharacterType.UNDEAD).onto(Character::setType)
+                    .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Deadite " + i));
+            // @formatter:on
+            assertThat(blueprint.get().getCharacters()).hasSize(3);
+            assertThat(strategy.metrics().getBuilds()).isEqualTo(1);
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try (BuildStrategy.Metered<ConcurrentHashMap<Integer, String>> strategy =
+                BuildStrategy.metered("parallel", BuildStrategy.parallel(pool, 1))) {
+            final CyclicBarrier together = new CyclicBarrier(2);
+            final Supplier<ConcurrentHashMap<Integer, String>> blueprint =
+                    Cotterpin.buildMap(strategy, ConcurrentHashMap<Integer, String>::new).parallel()
+                            .attachTimes(2, i -> i, (m, i) -> {
+                                try {
+                                    // the names can only be attached concurrently:
+                                    together.await(10, TimeUnit.SECONDS);
+                                } catch (Exception e) {
+                                    throw new IllegalStateException(e);
+                                }
+                                m.put(i, "Deadite " + i);
+                            });
+            assertThat(blueprint.get()).hasSize(2).containsEntry(1, "Deadite 1");
+            assertThat(strategy.metrics().getBuilds()).isEqualTo(1);
+        } finally {
+            pool.shutdown();
+        }
+
+        try (BuildStrategy.MeteredPooled<Franchise> strategy =
+                BuildStrategy.metered("pooled", BuildStrategy.pooled(2, f -> f.setName(null)))) {
+            Cotterpin.build(strategy, Franchise::new).child("Candyman").onto(Franchise::setName);
+            final Franchise franchise;
+            try (BuildStrategy.Pooled.Lease<Franchise> lease = strategy.lease()) {
+                franchise = lease.get();
+                assertThat(franchise.getName()).isEqualTo("Candyman");
+            }
+            assertThat(franchise.getName()).isNull();
+            try (BuildStrategy.Pooled.Lease<Franchise> lease = strategy.lease()) {
+                assertThat(lease.get()).isSameAs(franchise);
+            }
+            assertThat(strategy.metrics().getBuilds()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void testBuildProfiler() {
+        final BuildProfiler profiler = new BuildProfiler(2);
+        // @formatter:off
+        final Supplier<Franchise> blueprint = Cotterpin.build(profiler.<Franchise> prototype(), Franchise::new)
+            .child("Hellraiser").onto(Franchise::setName)
+            .child(Character::new)
+                .child(CharacterType.DEMON).onto(Character::setType)
+                .child("Puzzle box").addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, TreeSet::new))
+            .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Pinhead")
+            .compile();
+        // @formatter:on
+        for (int i = 0; i < 4; i++) {
+            assertThat(blueprint.get().getCharacters()).containsKey("Pinhead");
+        }
+        assertThat(profiler.sampled()).isEqualTo(2);
+
+        final Map<String, Long> profile = Stream.of(profiler.collapsed().split("\n"))
+                .collect(Collectors.toMap(l -> l.substring(0, l.lastIndexOf(' ')),
+                        l -> Long.valueOf(l.substring(l.lastIndexOf(' ') + 1))));
+        assertThat(profile).containsKeys("build", "build;/0 onto;supplier", "build;/0 onto;childStrategy;mutator",
+                "build;/1 into;supplier;/1/0 onto;childStrategy;mutator",
+                "build;/1 into;supplier;/1/1 addTo;childStrategy;mutator;accessor",
+                "build;/1 into;childStrategy;mutator;accessor").allSatisfy((k, v) -> assertThat(v).isNotNegative());
+
+        profiler.reset();
+        assertThat(profiler.collapsed()).isEmpty();
+        assertThat(profiler.sampled()).isZero();
+    }
+
+    @Test
+    public void testExplain() {
+        // @formatter:off
+        final Blueprint.Root<Franchise, ?> blueprint = Cotterpin.build(prototype(), Franchise::new)
+            .child("Evil Dead").onto(Franchise::setName)
+            .mutate(Franchise.Info.class)
+                .child(Year.of(1981)).onto(Franchise.Info::setOriginated)
+            .onto(Franchise::getInfo)
+            .times(2, (b, i) ->
+                b.child(Character::new)
+                    .each("Book", "Chainsaw").apply((w, c) ->
+                        c.child(w).addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, TreeSet::new))
+                    )
+                .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Deadite" + i)
+            );
+        // @formatter:on
+        final PlanNode plan = blueprint.plan();
+        assertThat(plan.getKind()).isSameAs(PlanNode.Kind.ROOT);
+        assertThat(plan.getBuildStrategy()).isInstanceOf(PrototypeStrategy.class);
+        assertThat(plan.getChildren()).extracting(PlanNode::getKind).containsExactly(PlanNode.Kind.CHILD,
+                PlanNode.Kind.MUTATOR, PlanNode.Kind.TIMES);
+
+        final PlanNode loop = plan.getChildren().get(2);
+        assertThat(loop.getIterations()).isEqualTo(2);
+        assertThat(loop.getChildren()).hasSize(2).allSatisfy(c -> {
+            assertThat(c.getAttachment()).isSameAs(PlanNode.Attachment.INTO);
+            assertThat(c.getComponentStrategy()).isInstanceOf(IfNull.class);
+            assertThat(c.getChildren()).singleElement().satisfies(each -> {
+                assertThat(each.getKind()).isSameAs(PlanNode.Kind.EACH);
+                assertThat(each.getIterations()).isEqualTo(2);
+                assertThat(each.getChildren()).extracting(PlanNode::getAttachment)
+                        .containsOnly(PlanNode.Attachment.ADD_TO);
+            });
+        });
+        assertThat(loop.getChildren()).extracting(PlanNode::getPath).containsExactly("/2", "/3");
+        assertThat(loop.getChildren().get(1).getChildren().get(0).getChildren()).extracting(PlanNode::getPath)
+                .containsExactly("/3/0", "/3/1");
+
+        final List<String> visited = new ArrayList<>();
+        plan.accept(new PlanNode.Visitor() {
+            @Override
+            public boolean enter(PlanNode node) {
+                visited.add(node.getPath() + ' ' + node.getKind());
+                return node.getKind() != PlanNode.Kind.MUTATOR;
+            }
+        });
+        assertThat(visited).hasSize(12).contains("/1 MUTATOR").doesNotContain("/1/0 CHILD");
+
+        assertThat(blueprint.explain()).startsWith(
+                "nodes: 13, depth: 5, max fan-out: 3\n" + "estimated allocations per build: 15 (9 values, up to 6 components)\n")
+                .contains("\n    /2 CHILD INTO [PrototypeStrategy] ifNull\n");
+    }
+
+    @Test
+    public void testParameterized() {
+        // @formatter:off
+        final Blueprint.Parameterized<String, Character, ?> character =
+            Cotterpin.parameterized((String weakness) -> new Character())
+                .child(CharacterType.SLASHER).onto(Character::setType)
+                .then(c -> c.setWeaknesses(new TreeSet<>()));
+        character
+            .child(character.input()).addTo(Character::getWeaknesses)
+            .compile();
+
+        final Blueprint.Parameterized<Pair<String, List<String>>, Franchise, ?> franchise =
+            Cotterpin.parameterized(prototype(), (Pair<String, List<String>> p) -> new Franchise());
+        franchise
+            .child(franchise.input(Pair::getLeft)).onto(Franchise::setName)
+            .child(Character::new)
+                .child(CharacterType.GHOST).onto(Character::setType)
+            .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new))
+                .at(franchise.input(p -> p.getLeft() + " ghost"))
+            .each(Pair::getRight, (f, w) -> f.getCharacters().put(w, character.apply(w)))
+            .compile();
+        // @formatter:on
+
+        assertThat(franchise.apply(Pair.of("Scream", Arrays.asList("Phone")))).satisfies(f -> {
+            assertThat(f.getName()).isEqualTo("Scream");
+            assertThat(f.getCharacters()).containsOnlyKeys("Scream ghost", "Phone");
+            assertThat(f.getCharacters().get("Scream ghost").getType()).isSameAs(CharacterType.GHOST);
+            assertThat(f.getCharacters().get("Phone").getWeaknesses()).containsExactly("Phone");
+        });
+        assertThat(franchise.apply(Pair.of("Halloween", Arrays.asList("Sister", "Nurse")))).satisfies(f -> {
+            assertThat(f.getName()).isEqualTo("Halloween");
+            assertThat(f.getCharacters()).containsOnlyKeys("Halloween ghost", "Sister", "Nurse");
+            assertThat(f.getCharacters().get("Nurse").getWeaknesses()).containsExactly("Nurse");
+        });
+        assertThatThrownBy(() -> character.input().get()).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> Cotterpin.parameterized(singleton(), (String s) -> new Character()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // constructor references overloaded by arity stay unambiguous for the Supplier entry points
+        assertThat(Cotterpin.build(StringBuilder::new).get()).isEmpty();
+        assertThat(Cotterpin.build(prototype(), ArrayList::new).get()).isEmpty();
+    }
+
+    @Test
+    public void testCompactLoops() {
+        // @formatter:off
+        final Blueprint.Parameterized<String, Character, ?> character =
+            Cotterpin.parameterized((String weakness) -> new Character())
+                .then(c -> c.setWeaknesses(new TreeSet<>()));
+        character
+            .child(character.input()).addTo(Character::getWeaknesses)
+            .compile();
+
+        final List<String> weaknesses = new ArrayList<>(Arrays.asList("Book", "Chainsaw"));
+        final Blueprint.Root<Franchise, ?> blueprint = Cotterpin.build(prototype(), Franchise::new)
+            .then(f -> f.setCharacters(new TreeMap<>()))
+            .attachEach(weaknesses, character, (f, c) -> f.getCharacters().put(c.getWeaknesses().iterator().next(), c))
+            .attachTimes(1000, i -> "Deadite" + i, (f, n) -> f.getCharacters().putIfAbsent(n, null));
+        // @formatter:on
+
+        assertThat(blueprint.get().getCharacters()).hasSize(1002).containsKeys("Book", "Chainsaw", "Deadite999")
+                .hasEntrySatisfying("Book", c -> assertThat(c.getWeaknesses()).containsExactly("Book"));
+        weaknesses.add("Boomstick");
+        assertThat(blueprint.get().getCharacters()).hasSize(1003).containsKey("Boomstick");
+
+        final PlanNode plan = blueprint.plan();
+        assertThat(plan.getChildren()).extracting(PlanNode::getKind).containsExactly(PlanNode.Kind.EACH,
+                PlanNode.Kind.TIMES);
+        assertThat(plan.getChildren()).allMatch(PlanNode::isCompact);
+        assertThat(plan.getChildren().get(0).getChildren()).singleElement()
+                .satisfies(body -> assertThat(body.getChildren()).hasSize(1));
+        assertThat(plan.getChildren().get(1).getIterations()).isEqualTo(1000);
+        assertThat(plan.getChildren().get(1).getChildren()).isEmpty();
+        assertThat(blueprint.explain()).contains("excluding 2 loops evaluated per build")
+                .contains("/1 TIMES x1000 compact");
+    }
+
+    @Test
+    public void testBind() {
+        final BiConsumer<Franchise, Map<String, ?>> binding = Cotterpin.bind(Franchise.class);
+        assertThat(Cotterpin.bind(Franchise.class)).isSameAs(binding);
+
+        // @formatter:off
+        final Blueprint.Parameterized<Map<String, Object>, Franchise, ?> franchise =
+            Cotterpin.parameterized((Map<String, Object> row) -> new Franchise());
+        franchise
+            .child(franchise.input()).onto(binding)
+            .compile();
+        // @formatter:on
+        final Map<String, Object> row = new HashMap<>();
+        row.put("name", "Evil Dead");
+        row.put("studio", "Renaissance Pictures");
+        row.put("director", "Sam Raimi");
+        assertThat(franchise.apply(row)).satisfies(f -> {
+            assertThat(f.getName()).isEqualTo("Evil Dead");
+            // no setter:
+            assertThat(f.getStudio()).isNull();
+        });
+        row.put("name", 1981);
+        assertThatThrownBy(() -> franchise.apply(row)).isInstanceOf(ClassCastException.class);
+
+        final Ranked ranked = new Ranked();
+        Cotterpin.bind(Ranked.class).accept(ranked, Collections.singletonMap("rank", 3));
+        assertThat(ranked.getRank()).isEqualTo(3);
+        assertThatThrownBy(() -> Cotterpin.bind(Ranked.class).accept(ranked, Collections.singletonMap("rank", null)))
+                .isInstanceOf(NullPointerException.class);
+
+        // not visible to generated classes:
+        final Internal internal = new Internal();
+        Cotterpin.bind(Internal.class).accept(internal, Collections.singletonMap("name", "Ash"));
+        assertThat(internal.name).isEqualTo("Ash");
+
+        assertThatThrownBy(() -> Cotterpin.bind(Ambiguous.class)).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Ambiguous setters");
+    }
+
+    @Test
+    public void testSimpleProperty() {
+        assertThat(
+        // @formatter:off
+            Cotterpin.build(Franchise::new)
+                .child("Psycho").onto(Franchise::setName)
+            .get()
+            // @formatter:on
+        ).hasFieldOrPropertyWithValue("name", "Psycho");
+    }
+
+    @Test
+    public void testMapProperty() {
+        assertThat(
+        // @formatter:off
+            Cotterpin.build(Franchise::new)
+                .child("Nightmare on Elm Street").onto(Franchise::setName)
+                .child(Character::new)
+                    .child(CharacterType.GHOST).onto(Character::setType)
+                .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Freddy Krueger")
+            .get()
+        // @formatter:on
+        ).hasFieldOrPropertyWithValue("name", "Nightmare on Elm Street").satisfies(f -> assertThat(f.getCharacters())
+                .hasEntrySatisfying("Freddy Krueger", c -> assertThat(c.getType()).isSameAs(CharacterType.GHOST)));
+    }
+
+    @Test
+    public void testCollectionProperty() {
+        assertThat(
+        // @formatter:off
+            Cotterpin.build(Franchise::new)
+                .child("Evil Dead").onto(Franchise::setName)
+                .child(Character::new)
+                    .child(CharacterType.UNDEAD).onto(Character::setType)
+                    .child("Book").addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, LinkedHashSet<String>::new))
+                    .child("Chainsaw").addTo(Character::getWeaknesses)
+                    .child("Boomstick").addTo(Character::getWeaknesses)
+                .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Henrietta")
+            .get()
+        // @formatter:on
+        ).hasFieldOrPropertyWithValue("name", "Evil Dead")
+                .satisfies(f -> assertThat(f.getCharacters()).hasEntrySatisfying("Henrietta",
+                        c -> assertThat(c.getWeaknesses()).containsExactly("Book", "Chainsaw", "Boomstick")));
+    }
+
+    @Test
+    public void testComponentResolvedOncePerBuild() {
+        final AtomicInteger lookups = new AtomicInteger();
+        final Function<Character, Set<String>> weaknesses = c -> {
+            lookups.incrementAndGet();
+            return c.getWeaknesses();
+        };
+        // @formatter:off
+        final Supplier<Character> blueprint = Cotterpin.build(prototype(), Character::new)
+            .times(50, (c, i) -> c
+                .child("Weakness " + i).addTo(weaknesses, ifNull(Character::setWeaknesses, LinkedHashSet<String>::new)))
+            .compile();
+        // @formatter:on
+
+        for (int i = 1; i <= 3; i++) {
+            assertThat(blueprint.get().getWeaknesses()).hasSize(50).startsWith("Weakness 0").endsWith("Weakness 49");
+            assertThat(lookups).hasValue(i);
+        }
+
+        final ComponentStrategy<Character, Set<String>> strategy = ifNull(Character::setWeaknesses,
+                LinkedHashSet<String>::new);
+        // @formatter:off
+        final Supplier<Character> replacing = Cotterpin.build(prototype(), Character::new)
+            .child("Book").addTo(weaknesses, strategy)
+            .child("Chainsaw").addTo(weaknesses, strategy)
+            .then(c -> c.setWeaknesses(new TreeSet<>()))
+            .child("Boomstick").addTo(weaknesses, strategy)
+            .compile();
+        // @formatter:on
+        assertThat(replacing.get().getWeaknesses()).isInstanceOf(TreeSet.class).containsExactly("Boomstick");
+    }
+
+    @Test
+    public void testComponentResolvedOncePerNestedBuild() {
+        final AtomicInteger lookups = new AtomicInteger();
+        final Function<Character, Set<String>> weaknesses = c -> {
+            lookups.incrementAndGet();
+            return c.getWeaknesses();
+        };
+        final AtomicReference<Supplier<Character>> self = new AtomicReference<>();
+        final AtomicBoolean nested = new AtomicBoolean();
+        // @formatter:off
+        final Blueprint.Root<Character, ?> blueprint = Cotterpin.build(prototype(), Character::new)
+            .strategy(ChildStrategy.IGNORE_NULL_VALUE)
+            .times(50, (c, i) -> c
+                .child(() -> i > 0 || nested.getAndSet(true) ? "Weakness " + i
+                        : self.get().get().getWeaknesses().iterator().next())
+                .addTo(weaknesses, ifNull(Character::setWeaknesses, LinkedHashSet<String>::new)));
+        // @formatter:on
+        self.set(blueprint);
+
+        // the nested build of the first value does not disturb the outer build's component:
+        assertThat(blueprint.get().getWeaknesses()).hasSize(50).startsWith("Weakness 0").endsWith("Weakness 49");
+        assertThat(lookups).hasValue(2);
+
+        lookups.set(0);
+        assertThat(blueprint.stream(1000).parallel().map(Character::getWeaknesses))
+                .allSatisfy(w -> assertThat(w).hasSize(50).endsWith("Weakness 49"));
+        assertThat(lookups).hasValue(1000);
+    }
+
+    @Test
+    public void testFusedAttachments() {
+        final AtomicInteger bulk = new AtomicInteger();
+        final Supplier<Set<String>> weaknesses = () -> new LinkedHashSet<String>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public boolean addAll(Collection<? extends String> c) {
+                bulk.incrementAndGet();
+                return super.addAll(c);
+            }
+        };
+        // @formatter:off
+        final Supplier<Franchise> blueprint = Cotterpin.build(prototype(), Franchise::new)
+            .times(3, (f, i) -> f
+                .child(Character::new)
+                    .times(10, (c, j) -> c
+                        .child("A" + j).addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, weaknesses)))
+                    .child(CharacterType.GHOST).onto(Character::setType)
+                    .times(5, (c, j) -> c
+                        .child("B" + j).addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, weaknesses)))
+                .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Ghost " + i))
+            .compile();
+        // @formatter:on
+
+        final Franchise f = blueprint.get();
+        assertThat(f.getCharacters()).containsOnlyKeys("Ghost 0", "Ghost 1", "Ghost 2")
+                .allSatisfy((k, c) -> assertThat(c.getWeaknesses()).containsExactly("A0", "A1", "A2", "A3", "A4",
+                        "A5", "A6", "A7", "A8", "A9", "B0", "B1", "B2", "B3", "B4"));
+        // one bulk addition per consecutive run, per character:
+        assertThat(bulk).hasValue(6);
+
+        final List<String> order = new ArrayList<>();
+        final ComponentStrategy<Franchise, Map<String, Character>> characters = ifNull(Franchise::setCharacters,
+                () -> {
+                    order.add("map");
+                    return new TreeMap<>();
+                });
+        // @formatter:off
+        final Supplier<Franchise> ordered = Cotterpin.build(prototype(), Franchise::new)
+            .times(3, (b, i) -> b
+                .child(() -> {
+                    order.add("value" + i);
+                    return new Character();
+                })
+                .into(Franchise::getCharacters, characters).at(() -> {
+                    order.add("key" + i);
+                    return "Ghost " + i;
+                }));
+        // @formatter:on
+        assertThat(ordered.get().getCharacters()).containsOnlyKeys("Ghost 0", "Ghost 1", "Ghost 2");
+        // as unfused, save that all entries are put once built:
+        assertThat(order).containsExactly("value0", "map", "key0", "value1", "key1", "value2", "key2");
+    }
+
+    @Test
+    public void testPrimitiveChildren() {
+        final AtomicInteger counter = new AtomicInteger();
+        assertThat(Cotterpin.build(prototype(), AtomicLong::new).childLong(42L).onto(AtomicLong::set).get())
+                .hasValue(42L);
+        assertThat(Cotterpin.build(prototype(), () -> new double[1]).childDouble(1.5).onto((a, d) -> a[0] += d)
+                .childDouble(() -> 0.25).onto((a, d) -> a[0] += d).get()).containsExactly(1.75);
+        assertThat(Cotterpin.build(prototype(), AtomicInteger::new).childInt(counter::incrementAndGet)
+                .onto(AtomicInteger::addAndGet).strategy(ChildStrategy.IGNORE_NULL_VALUE).childInt(3)
+                .onto(AtomicInteger::addAndGet).get()).hasValue(4);
+        assertThat(counter).hasValue(1);
+
+        final Blueprint.Root<AtomicInteger, ?> blueprint = Cotterpin.build(prototype(), AtomicInteger::new);
+        final Blueprint.IntChild<AtomicInteger, ?> child = blueprint.childInt(1);
+        child.onto(AtomicInteger::addAndGet);
+        assertThatThrownBy(() -> child.onto(AtomicInteger::addAndGet)).isInstanceOf(IllegalStateException.class);
+        assertThat(blueprint.get()).hasValue(1);
+    }
+
+    @Test
+    public void testComponent() {
+        assertThat(
+        // @formatter:off
+            Cotterpin.build(Franchise::new)
+                .child("Halloween").onto(Franchise::setName)
+                .mutate(Franchise.Info.class)
+                    .child(Year.of(1978)).onto(Franchise.Info::setOriginated)
+                .onto(Franchise::getInfo)
+            .get()
+            // @formatter:on
+        ).hasFieldOrPropertyWithValue("name", "Halloween").extracting(Franchise::getInfo)
+                .hasFieldOrPropertyWithValue("originated", Year.of(1978));
+    }
+
+    @Test
+    public void testComponentWithTypeLiteral() {
+        assertThat(
+        // @formatter:off
+            Cotterpin.build(Franchise::new)
+                .child("Halloween").onto(Franchise::setName)
+                .mutate(new TypeLiteral<Franchise.Info>() {})
+                    .child(Year.of(1978)).onto(Franchise.Info::setOriginated)
+                .onto(Franchise::getInfo)
+            .get()
+        // @formatter:on
+        ).hasFieldOrPropertyWithValue("name", "Halloween").extracting(Franchise::getInfo)
+                .hasFieldOrPropertyWithValue("originated", Year.of(1978));
+    }
+
+    @Test
+    public void testLazyComponent() {
+        Franchise f = new Franchise();
+        Info info = f.getInfo();
+        assertThat(Cotterpin.build(f).mutate(Info.class).onto(Franchise::getInfo, ifNull(Franchise::setInfo, Info::new))
+                .get().getInfo()).isSameAs(info);
+    }
+
+    @Test
+    public void testMissingComponent() {
+        Franchise f = new Franchise();
+        f.setInfo(null);
+        assertThat(Cotterpin.build(f).mutate(Info.class).onto(Franchise::getInfo, ifNull(Franchise::setInfo, Info::new))
+                .get().getInfo()).isNotNull();
+    }
+
+    @Test
+    public void testMapRoot() {
+        assertThat(Cotterpin.build(Franchise::new).map(Optional::of).get().get()).isNotNull();
+    }
+
+    @Test
+    public void testMapChild() {
+        assertThat(
+        // @formatter:off
+            Cotterpin.build(Franchise::new)
+                .child("New Line").map(Optional::of).onto(Franchise::maybeSetStudio)
+            .get()
+        // @formatter:on
+        ).hasFieldOrPropertyWithValue("studio", "New Line");
+    }
+
+    @Test
+    public void testNull() {
+        Assertions.assertThat(Cotterpin.build(() -> null).get()).isNull();
+    }
+
+    @Test
+    public void testNullChild() {
+        assertThat(
+        // @formatter:off
+            Cotterpin.build(Franchise::new)
+                .nul(String.class).onto(Franchise::setName)
+            .get()
+        // @formatter:on
+                        .getName()).isNull();
+    }
+
+    @Test
+    public void testParameterizedNullChild() {
+        assertThat(
+        // @formatter:off
+            Cotterpin.build(Franchise::new)
+                .nul(new TypeLiteral<Map<String, Character>>() {}).onto(Franchise::setCharacters)
+            .get().getCharacters()
+        // @formatter:on
+        ).isNull();
+    }
+
+    @Test
+    public void testWildNullChildSetProperty() {
+        Franchise f =
+        // @formatter:off
+            Cotterpin.build(Mockito.mock(Franchise.class))
+                .nul().onto(Franchise::setName
+            ).get();
+        // @formatter:on
+        Mockito.verify(f).setName(null);
+    }
+
+    @Test
+    public void testWildNullChildAddToCollectionProperty() {
+        assertThat(
+        // @formatter:off
+            Cotterpin.build(Character::new)
+                .nul().addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, LinkedHashSet::new))
+            .get()
+        // @formatter:on
+        .getWeaknesses()).singleElement().satisfies(e -> assertThat(e).isNull());
+    }
+
+    @Test
+    public void testWildNullChildPutIntoMapProperty() {
+        assertThat(
+        // @formatter:off
+            Cotterpin.build(Franchise::new)
+                .nul().into(Franchise::getCharacters, ifNull(Franchise::setCharacters, HashMap::new)).at("null")
+            .get()
+        // @formatter:on
+                        .getCharacters()).hasSize(1).hasEntrySatisfying("null", Objects::isNull);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullRootWithDefaultChildStrategy() {
+        Cotterpin.build((Franchise) null).child("").onto(Franchise::setName).get();
+    }
+
+    @Test
+    public void testIgnoreNullParentStrategy() {
+        assertThat(Cotterpin.build((Franchise) null).strategy(ChildStrategy.IGNORE_NULL_PARENT).child("")
+                .onto(Franchise::setName).get()).isNull();
+    }
+
+    @Test
+    public void testIgnoreNullValueStrategy() {
+        Franchise franchise = Mockito.mock(Franchise.class);
+        Cotterpin.build(franchise).strategy(ChildStrategy.IGNORE_NULL_VALUE).child((String) null)
+                .onto(Franchise::setName).get();
+        Mockito.verify(franchise, never()).setName(null);
+    }
+
+    @Test
+    public void testRestoreDefaultStrategy() {
+        Franchise franchise = Mockito.mock(Franchise.class);
+        Cotterpin.build(franchise).strategy(ChildStrategy.IGNORE_NULL_VALUE).child((String) null)
+                .strategy(ChildStrategy.DEFAULT).onto(Franchise::setName).get();
+        Mockito.verify(franchise, times(1)).setName(null);
+    }
+
+    @Test
+    public void testResetStrategy() {
+        assertThatThrownBy(() -> {
+            Cotterpin.build((Character) null)
+            //@formatter:off
+                .strategy(ChildStrategy.IGNORE_NULL_PARENT)
+                .child(CharacterType.ALIEN).strategy(ChildStrategy.DEFAULT, ChildStrategy.IGNORE_NULL_VALUE)
+                .onto(Character::setType)
+                //@formatter:on
+                    .get();
+        }).isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    public void testChildStrategyResolvedOnce() {
+        final AtomicInteger applications = new AtomicInteger();
+        final ChildStrategy counting = new ChildStrategy() {
+
+            @Override
+            public <P, T> BiConsumer<P, T> apply(BiConsumer<P, T> cmer) {
+                applications.incrementAndGet();
+                return cmer;
+            }
+        };
+        // @formatter:off
+        Supplier<Franchise> s = Cotterpin.build(prototype(), Franchise::new)
+            .strategy(counting)
+            .child("Phantasm").onto(Franchise::setName)
+            .child(Character::new)
+                .child(CharacterType.MONSTER).onto(Character::setType)
+            .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Tall Man");
+        // @formatter:on
+        final int bound = applications.get();
+        s.get();
+        s.get();
+        assertThat(applications).hasValue(bound);
+    }
+
+    @Test
+    public void testRootCollection() {
+        assertThat(
+        //@formatter:off
+            Cotterpin.buildCollection(() -> new ArrayList<Character>())
+                .element(Character::new)
+                    .child(CharacterType.ALIEN).onto(Character::setType)
+                .add()
+                .element(Character::new)
+                    .child(CharacterType.DEMON).onto(Character::setType)
+                .add()
+                .element(Character::new)
+                    .child(CharacterType.GHOST).onto(Character::setType)
+                .add()
+            .get()
+        //@formatter:on
+        ).extracting(Character::getType).containsExactly(CharacterType.ALIEN, CharacterType.DEMON, CharacterType.GHOST);
+    }
+
+    @Test
+    public void testTransformedRootCollection() {
+        assertThat(
+        //@formatter:off
+            Cotterpin.buildCollection(() -> new ArrayList<Character>())
+                .element(Character::new)
+                    .child(CharacterType.ALIEN).onto(Character::setType)
+                .add()
+                .element(Character::new)
+                    .child(CharacterType.DEMON).onto(Character::setType)
+                .add()
+                .element(Character::new)
+                    .child(CharacterType.GHOST).onto(Character::setType)
+                .add()
+            .map(Collections::unmodifiableList)
+            .get()
+        //@formatter:on
+        ).satisfies(c -> {
+            assertThat(c).isInstanceOf(Collections.unmodifiableList(Collections.emptyList()).getClass());
+            assertThat(c).extracting(Character::getType).containsExactly(CharacterType.ALIEN, CharacterType.DEMON,
+                    CharacterType.GHOST);
+        });
+    }
+
+    @Test
+    public void testRootMap() {
+        assertThat(
+        //@formatter:off
+            Cotterpin.buildMap(() -> new LinkedHashMap<String, Character>())
+                .value(Character::new)
+                    .child(CharacterType.GOLEM).onto(Character::setType)
+                .at("Blade")
+                .value(Character::new)
+                    .child(CharacterType.GOLEM).onto(Character::setType)
+                .at("Pinhead")
+                .value(Character::new)
+                    .child(CharacterType.GOLEM).onto(Character::setType)
+                .at("Jester")
+            .get()
+        //@formatter:on
+        ).satisfies(m -> {
+            assertThat(m.keySet()).containsExactly("Blade", "Pinhead", "Jester");
+            assertThat(m.values()).extracting(Character::getType).allSatisfy(CharacterType.GOLEM::equals);
+        });
+    }
+
+    @Test
+    public void testSized() {
+        final List<Integer> sizes = new ArrayList<>();
+        final Sized<Set<String>> weaknesses = n -> {
+            sizes.add(n);
+            return new LinkedHashSet<>(n);
+        };
+        assertThat(
+        // @formatter:off
+            Cotterpin.buildCollection(prototype(), Sized.sized(n -> {
+                sizes.add(n);
+                return new ArrayList<Character>(n);
+            }))
+                .times(12, (l, i) -> l
+                    .element(Character::new)
+                        .times(i % 3, (c, j) -> c
+                            .child("Weakness " + j).addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, weaknesses)))
+                    .add())
+            .get()
+        // @formatter:on
+        ).hasSize(12);
+        assertThat(sizes).containsExactly(12, 1, 2, 1, 2, 1, 2, 1, 2);
+        assertThat(Cotterpin.buildMap(prototype(), Sized.sized(HashMap<String, Character>::new))
+                .value(Character::new).at("Ash").value(Character::new).at("Henrietta").get())
+                        .containsOnlyKeys("Ash", "Henrietta");
+
+        // singleton() creates each before the elements to follow are counted, a component upon its first:
+        sizes.clear();
+        assertThat(
+        // @formatter:off
+            Cotterpin.buildCollection(singleton(), Sized.sized(n -> {
+                sizes.add(n);
+                return new ArrayList<Character>(n);
+            }))
+                .times(2, (l, i) -> l
+                    .element(Character::new)
+                        .times(3, (c, j) -> c
+                            .child("Weakness " + j).addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses, weaknesses)))
+                    .add())
+            .get()
+        // @formatter:on
+        ).hasSize(2).allSatisfy(c -> assertThat(c.getWeaknesses()).hasSize(3));
+        assertThat(sizes).containsExactly(0, 1, 1);
+
+        // counted per component, however many instances a loop body creates:
+        sizes.clear();
+        assertThat(
+        // @formatter:off
+            Cotterpin.build(prototype(), Character::new)
+                .times(100, (c, i) -> c
+                    .child("Weakness " + i).addTo(Character::getWeaknesses, ifNull(Character::setWeaknesses,
+                        Sized.sized(n -> {
+                            sizes.add(n);
+                            return new LinkedHashSet<>(n);
+                        }))))
+            .get().getWeaknesses()
+        // @formatter:on
+        ).hasSize(100);
+        assertThat(sizes).containsExactly(100);
+    }
+
+    @Test
+    public void testTransformedRootMap() {
+        assertThat(
+        //@formatter:off
+            Cotterpin.buildMap(() -> new LinkedHashMap<String, Character>())
+                .value(Character::new)
+                    .child(CharacterType.GOLEM).onto(Character::setType)
+                .at("Blade")
+                .value(Character::new)
+                    .child(CharacterType.GOLEM).onto(Character::setType)
+                .at("Pinhead")
+                .value(Character::new)
+                    .child(CharacterType.GOLEM).onto(Character::setType)
+                .at("Jester")
+            .map(Collections::unmodifiableMap)
+            .get()
+        //@formatter:on
+        ).satisfies(m -> {
+            assertThat(m).isInstanceOf(Collections.unmodifiableMap(Collections.emptyMap()).getClass());
+            assertThat(m.keySet()).containsExactly("Blade", "Pinhead", "Jester");
+            assertThat(m.values()).extracting(Character::getType).allSatisfy(CharacterType.GOLEM::equals);
+        });
+    }
+
+    @Test
+    public void testBasicLoop() {
+        Franchise f = Cotterpin.build(Mockito.mock(Franchise.class))
+                .times(5, (b, i) -> b.child(String.valueOf(i)).onto(Franchise::setName)).get();
+
+        Mockito.verify(f, times(5)).setName(Mockito.anyString());
+    }
+
+    @Test
+    public void testCollectionLoop() {
+        assertThat(
+        //@formatter:off
+            Cotterpin.buildCollection(() -> new TreeSet<Integer>())
+                .times(5, (b, i) ->
+                    b.element(Integer.valueOf(i)).add()
+                )
+            .get()
+        //@formatter:on
+        ).containsExactly(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    public void testMapLoop() {
+        assertThat(
+        // @formatter:off
+            Cotterpin.buildMap(() -> new TreeMap<Integer, String>())
+                .times(5, (b, i) ->
+                    b.value(String.valueOf(i)).at(i)
+                )
+            .get()
+        // @formatter:on
+        ).containsExactly(Pair.of(0, "0"), Pair.of(1, "1"), Pair.of(2, "2"), Pair.of(3, "3"), Pair.of(4, "4"));
+    }
+
+    @Test
+    public void testNestedLoop() {
+        assertThat(
+        // @formatter:off
+            Cotterpin.buildMap(() -> new TreeMap<Integer, List<Integer>>())
+                .times(3, (b, i) ->
+                    b.value(ArrayList::new)
+                        .times(3, (l, j) ->
+                            l.child(j).addTo(Function.identity())
+                        )
+                    .at(i)
+                )
+            .get()
+        // @formatter:on
+        ).containsOnlyKeys(0, 1, 2).allSatisfy((k, v) -> assertThat(v).containsExactly(0, 1, 2));
+    }
+
+    @Test
+    public void testBasicForEach() {
+        assertThat(
+        // @formatter:off
+            Cotterpin.build(Franchise::new)
+            .each(CharacterType.values()).apply((t, p) ->
+                p.child(Character::new)
+                    .child(t).onto(Character::setType)
+                .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at(t::name)
+            ).get().getCharacters()
+        // @formatter:on
+        ).hasSize(CharacterType.values().length).satisfies(m -> {
+            for (CharacterType t : CharacterType.values()) {
+                assertThat(m).hasEntrySatisfying(t.name(), c -> assertThat(c.getType()).isSameAs(t));
+            }
+        });
+    }
+
+    @Test
+    public void testCollectionForEach() {
+        assertThat(
+        // @formatter:off
+            Cotterpin.buildCollection(() -> new ArrayList<Character>())
+            .each(CharacterType.values()).apply((t, p) ->
+                p.element(Character::new)
+                    .child(t).onto(Character::setType)
+                .add()
+            ).get()
+        // @formatter:on
+        ).extracting(Character::getType).containsExactly(CharacterType.values());
+    }
+
+    @Test
+    public void testMapForEach() {
+        assertThat(
+        // @formatter:off
+            Cotterpin.buildMap(() -> new EnumMap<CharacterType,Character>(CharacterType.class))
+            .each(CharacterType.values()).apply((t, p) ->
+                p.value(Character::new)
+                    .child(t).onto(Character::setType)
+                .at(t)
+            ).get()
+        // @formatter:on
+        ).hasSize(CharacterType.values().length).satisfies(m -> {
+            for (CharacterType t : CharacterType.values()) {
+                assertThat(m).hasEntrySatisfying(t, c -> assertThat(c.getType()).isSameAs(t));
+            }
+        });
+    }
+
+    public static class Ranked {
+        private int rank;
+
+        public int getRank() {
+            return rank;
+        }
+
+        public void setRank(int rank) {
+            this.rank = rank;
+        }
+    }
+
+    static class Internal {
+        String name;
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class Ambiguous {
+
+        public void setRelease(Year release) {
+        }
+
+        public void setRelease(LocalDate release) {
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package cotterpin;
+
+import static cotterpin.BuildStrategy.prototype;
+import static cotterpin.ComponentStrategy.ifNull;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+import acme.Character;
+import acme.CharacterType;
+import acme.Franchise;
+
+public class FlightRecorderIT {
+
+    @Test
+    public void testFlightRecorderEvents() throws Exception {
+        // loaded from the versioned entries of the multi-release JAR:
+        assertThat(Events.INSTANCE.getClass().getName()).isEqualTo("cotterpin.JfrEvents");
+
+        final Path dump = Files.createTempFile("cotterpin", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("cotterpin.Build").withoutThreshold();
+                recording.enable("cotterpin.Step").withoutThreshold();
+                recording.enable("cotterpin.ComponentCreation").withoutThreshold();
+                recording.start();
+                // @formatter:off
+                Cotterpin.build(prototype(), Franchise::new)
+                    .child(Character::new)
+                        .child(CharacterType.DEMON).onto(Character::setType)
+                    .into(Franchise::getCharacters, ifNull(Franchise::setCharacters, TreeMap::new)).at("Pinhead")
+                .get();
+                final ComponentStrategy<Character, Set<String>> weaknesses = ifNull(Character::setWeaknesses,
+                        LinkedHashSet<String>::new);
+                Cotterpin.build(prototype(), Character::new)
+                    .times(2, (c, i) -> c
+                        .child(i == 0 ? "Puzzle box" : "Hooks").addTo(Character::getWeaknesses, weaknesses))
+                .get();
+                // @formatter:on
+                recording.stop();
+                recording.dump(dump);
+            }
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+            assertThat(events).anySatisfy(e -> {
+                assertThat(e.getEventType().getName()).isEqualTo("cotterpin.Build");
+                assertThat(e.getString("path")).isEqualTo("/");
+                assertThat(e.getClass("type").getName()).isEqualTo(Franchise.class.getName());
+            });
+            assertThat(events).anySatisfy(e -> {
+                assertThat(e.getEventType().getName()).isEqualTo("cotterpin.Step");
+                assertThat(e.getString("path")).isEqualTo("/0/0");
+                assertThat(e.getString("kind")).isEqualTo("onto");
+                assertThat(e.getClass("parentType").getName()).isEqualTo(Character.class.getName());
+                assertThat(e.getClass("valueType").getName()).isEqualTo(CharacterType.class.getName());
+            });
+            assertThat(events).anySatisfy(e -> {
+                assertThat(e.getEventType().getName()).isEqualTo("cotterpin.Step");
+                assertThat(e.getString("path")).isEqualTo("/0");
+                assertThat(e.getString("kind")).isEqualTo("into");
+                assertThat(e.getClass("parentType").getName()).isEqualTo(Franchise.class.getName());
+                assertThat(e.getClass("valueType").getName()).isEqualTo(Character.class.getName());
+            });
+            // fused attachments remain fused while recording, as a single step:
+            assertThat(events.stream().filter(e -> e.getEventType().getName().equals("cotterpin.Step")
+                    && e.getString("kind").startsWith("add")).map(e -> e.getString("kind") + e.getString("path")))
+                            .containsExactly("addAll/");
+            assertThat(events).anySatisfy(e -> {
+                assertThat(e.getEventType().getName()).isEqualTo("cotterpin.ComponentCreation");
+                assertThat(e.getClass("parentType").getName()).isEqualTo(Franchise.class.getName());
+                assertThat(e.getClass("componentType").getName()).isEqualTo(TreeMap.class.getName());
+            });
+        } finally {
+            Files.delete(dump);
+        }
+    }
+}